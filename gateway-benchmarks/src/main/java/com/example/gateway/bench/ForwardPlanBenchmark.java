@@ -0,0 +1,66 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.ForwardPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upstream URI construction for the three forwarding shapes: {@code $1} rewrite, strip-prefix and pass-through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForwardPlanBenchmark {
+    private static final String PATH = "/api/account/users/42/orders/7";
+    private static final String QUERY = "page=2&size=50";
+
+    private ForwardPlan rewrite;
+    private ForwardPlan strip;
+    private ForwardPlan passThrough;
+
+    @Setup
+    public void setUp() {
+        rewrite = plan("/mock/account/$1", null);
+        strip = plan(null, 2);
+        passThrough = plan(null, null);
+    }
+
+    @Benchmark
+    public URI rewrite() {
+        return rewrite.targetUri(PATH, QUERY);
+    }
+
+    @Benchmark
+    public URI stripPrefix() {
+        return strip.targetUri(PATH, QUERY);
+    }
+
+    @Benchmark
+    public URI passThrough() {
+        return passThrough.targetUri(PATH, QUERY);
+    }
+
+    private static ForwardPlan plan(String rewrite, Integer stripPrefix) {
+        RouteRule rule = new RouteRule();
+        rule.setPath("/api/account/**");
+        rule.setTarget("http://localhost:9001/base/");
+        rule.setRewrite(rewrite);
+        rule.setStripPrefix(stripPrefix);
+        return ForwardPlan.compile(rule);
+    }
+}
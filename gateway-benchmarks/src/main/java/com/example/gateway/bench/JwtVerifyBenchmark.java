@@ -0,0 +1,161 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.service.auth.JwkSetRegistry;
+import com.example.gateway.service.auth.JwtVerifier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtVerifier#verify} for each signature algorithm, with the verified-token cache and without it. A
+ * pool of distinct tokens stands in for many callers; with the cache on, only the first call per token pays for
+ * the signature check.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JwtVerifyBenchmark {
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+    @Param({"RS256", "ES256", "HS256"})
+    public String alg;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    @Param({"1024"})
+    public int tokens;
+
+    private JwtVerifier verifier;
+    private String[] tokenPool;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JwkSetRegistry registry = new JwkSetRegistry(new GatewayProperties(), mapper);
+        Signer signer = signer(alg);
+        registry.put("bench", "{\"keys\": [" + signer.jwk() + "]}");
+        verifier = new JwtVerifier(registry, mapper, cached ? 10_000 : 0, 30_000L);
+        long exp = System.currentTimeMillis() / 1000L + 3600;
+        tokenPool = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            String header = B64.encodeToString(("{\"alg\":\"" + alg + "\",\"kid\":\"bench\"}")
+                    .getBytes(StandardCharsets.UTF_8));
+            String claims = B64.encodeToString(("{\"sub\":\"consumer-" + i + "\",\"exp\":" + exp + "}")
+                    .getBytes(StandardCharsets.UTF_8));
+            String input = header + "." + claims;
+            tokenPool[i] = input + "." + B64.encodeToString(signer.sign(input.getBytes(StandardCharsets.US_ASCII)));
+        }
+        if (verifier.verify("bench", tokenPool[0]) == null) {
+            throw new IllegalStateException("benchmark token does not verify");
+        }
+    }
+
+    @Benchmark
+    public Object verify() {
+        return verifier.verify("bench", tokenPool[ThreadLocalRandom.current().nextInt(tokenPool.length)]);
+    }
+
+    private interface Signer {
+        String jwk();
+
+        byte[] sign(byte[] input) throws Exception;
+    }
+
+    private static Signer signer(String alg) throws Exception {
+        switch (alg) {
+            case "RS256": {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                KeyPair pair = generator.generateKeyPair();
+                RSAPublicKey key = (RSAPublicKey) pair.getPublic();
+                String jwk = "{\"kty\":\"RSA\",\"kid\":\"bench\",\"n\":\"" + unsigned(key.getModulus())
+                        + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}";
+                return signature(jwk, "SHA256withRSA", pair);
+            }
+            case "ES256": {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                KeyPair pair = generator.generateKeyPair();
+                ECPublicKey key = (ECPublicKey) pair.getPublic();
+                String jwk = "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"bench\",\"x\":\""
+                        + unsigned(key.getW().getAffineX()) + "\",\"y\":\"" + unsigned(key.getW().getAffineY())
+                        + "\"}";
+                return signature(jwk, "SHA256withECDSAinP1363Format", pair);
+            }
+            default: {
+                byte[] secret = new byte[32];
+                ThreadLocalRandom.current().nextBytes(secret);
+                String jwk = "{\"kty\":\"oct\",\"kid\":\"bench\",\"k\":\"" + B64.encodeToString(secret) + "\"}";
+                return new Signer() {
+                    @Override
+                    public String jwk() {
+                        return jwk;
+                    }
+
+                    @Override
+                    public byte[] sign(byte[] input) throws Exception {
+                        Mac mac = Mac.getInstance("HmacSHA256");
+                        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+                        return mac.doFinal(input);
+                    }
+                };
+            }
+        }
+    }
+
+    private static Signer signature(String jwk, String algorithm, KeyPair pair) {
+        return new Signer() {
+            @Override
+            public String jwk() {
+                return jwk;
+            }
+
+            @Override
+            public byte[] sign(byte[] input) throws Exception {
+                Signature signature = Signature.getInstance(algorithm);
+                signature.initSign(pair.getPrivate());
+                signature.update(input);
+                return signature.sign();
+            }
+        };
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return B64.encodeToString(bytes);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.GatewayApplication;
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.RuleSnapshot;
+import com.example.gateway.service.metrics.LatencyHistogram;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load run: boots the gateway in-process with a synthetic rule set whose rules all rewrite to
+ * {@code MockBackendServer}'s health endpoint, drives it with a fixed number of concurrent keep-alive clients
+ * for a fixed duration, and writes throughput, latency percentiles and status counts as JSON.
+ *
+ * <p>Settings are system properties: {@code routes} (10000), {@code concurrency} (64), {@code duration} and
+ * {@code warmup} in seconds (30, 5), {@code port} (18080), {@code out} ({@code target/e2e-results.json}) and
+ * {@code protocol}: {@code http1} (default), or {@code h2c} for cleartext HTTP/2 from the clients to the gateway
+ * and from the gateway to the mock backend.
+ */
+public final class ProxyLoadHarness {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private ProxyLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int routes = Integer.getInteger("routes", 10_000);
+        int concurrency = Integer.getInteger("concurrency", 64);
+        int duration = Integer.getInteger("duration", 30);
+        int warmup = Integer.getInteger("warmup", 5);
+        int port = Integer.getInteger("port", 18080);
+        Path out = Path.of(System.getProperty("out", "target/e2e-results.json"));
+        boolean h2c = "h2c".equalsIgnoreCase(System.getProperty("protocol", "http1"));
+
+        RuleSnapshot snapshot = SyntheticRoutes.snapshot(routes, "http://localhost:9001");
+        for (RouteRule rule : snapshot.getRoutes()) {
+            rule.setRewrite("/mock/health");
+            rule.setMethods(null);
+            rule.setUpstreamProtocol(h2c ? "h2c" : null);
+        }
+        String[] paths = SyntheticRoutes.paths(snapshot);
+        ObjectMapper mapper = new ObjectMapper();
+        Path dataDir = Files.createTempDirectory("gateway-e2e");
+        Path dataPath = dataDir.resolve("routes.json");
+        mapper.writeValue(dataPath.toFile(), snapshot);
+
+        ConfigurableApplicationContext context = SpringApplication.run(GatewayApplication.class,
+                "--server.port=" + port, "--gateway.data-path=" + dataPath, "--logging.level.root=WARN",
+                "--server.http2.enabled=" + h2c, "--gateway.mock.h2c=" + h2c);
+        ConnectionProvider provider = ConnectionProvider.builder("e2e").maxConnections(concurrency).build();
+        HttpClient client = HttpClient.create(provider).baseUrl("http://localhost:" + port).keepAlive(true)
+                .protocol(h2c ? HttpProtocol.H2C : HttpProtocol.HTTP11);
+        try {
+            run(client, paths, concurrency, warmup);
+            Result result = run(client, paths, concurrency, duration);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("timestamp", Instant.now().toString());
+            report.put("config", Map.of("routes", routes, "concurrency", concurrency,
+                    "durationSeconds", duration, "warmupSeconds", warmup, "protocol", h2c ? "h2c" : "http1"));
+            report.put("environment", Map.of("java", System.getProperty("java.version"),
+                    "cpus", Runtime.getRuntime().availableProcessors()));
+            report.put("requests", result.requests.sum());
+            report.put("errors", result.errors.sum());
+            report.put("throughputRps", result.requests.sum() / (double) duration);
+            long[] percentiles = result.latency.percentiles(QUANTILES);
+            Map<String, Long> latency = new LinkedHashMap<>();
+            latency.put("p50", percentiles[0]);
+            latency.put("p90", percentiles[1]);
+            latency.put("p99", percentiles[2]);
+            latency.put("p999", percentiles[3]);
+            report.put("latencyMicros", latency);
+            Map<Integer, Long> statuses = new TreeMap<>();
+            result.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            report.put("statuses", statuses);
+
+            if (out.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(out.toAbsolutePath().getParent());
+            }
+            mapper.writerWithDefaultPrettyPrinter().writeValue(out.toFile(), report);
+            System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        } finally {
+            provider.disposeLater().block();
+            context.close();
+            Files.deleteIfExists(dataPath);
+            Files.deleteIfExists(dataDir.resolve("routes.journal"));
+            Files.deleteIfExists(dataDir);
+        }
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, String[] paths, int concurrency, int seconds) {
+        Result result = new Result();
+        if (seconds <= 0) {
+            return result;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Flux.range(0, concurrency)
+                .flatMap(worker -> Mono.defer(() -> send(client, paths, result))
+                        .repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+        return result;
+    }
+
+    private static Mono<Integer> send(HttpClient client, String[] paths, Result result) {
+        int i = ThreadLocalRandom.current().nextInt(paths.length);
+        long start = System.nanoTime();
+        return client.get()
+                .uri(paths[i])
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .doOnNext(status -> {
+                    result.latency.record((System.nanoTime() - start) / 1000L);
+                    result.requests.increment();
+                    result.statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+                })
+                .onErrorResume(error -> {
+                    result.errors.increment();
+                    return Mono.just(0);
+                });
+    }
+
+    private static final class Result {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+}
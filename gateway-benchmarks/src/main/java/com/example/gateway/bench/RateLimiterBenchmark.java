@@ -0,0 +1,72 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.ratelimit.ClusterRateLimiter;
+import com.example.gateway.service.ratelimit.LoopbackRateLimitCoordinator;
+import com.example.gateway.service.ratelimit.RateLimitPolicy;
+import com.example.gateway.service.ratelimit.RateLimiter;
+import com.example.gateway.service.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TokenBucketRateLimiter#tryAcquire} under contention: every thread on one route-wide bucket, or spread
+ * over per-consumer buckets. {@code cluster} mode spends tokens leased from the in-process coordinator, so the
+ * difference to {@code local} is the lease bookkeeping. Thread count defaults to 8; override with {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+    @Param({"1", "1024"})
+    public int consumers;
+
+    @Param({"local", "cluster"})
+    public String mode;
+
+    private RateLimiter limiter;
+    private RateLimitPolicy policy;
+    private String[] consumerKeys;
+
+    @Setup
+    public void setUp() {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getRateLimit().setMode(mode);
+        limiter = new ClusterRateLimiter(properties, new TokenBucketRateLimiter(properties),
+                List.of(new LoopbackRateLimitCoordinator(properties)));
+        RouteRule rule = new RouteRule();
+        rule.setId("bench");
+        rule.setRateLimitQps(1_000_000);
+        rule.setRateLimitKey(consumers == 1 ? "route" : "ip");
+        policy = RateLimitPolicy.from(rule);
+        consumerKeys = new String[consumers];
+        for (int i = 0; i < consumers; i++) {
+            consumerKeys[i] = consumers == 1 ? "" : "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        String consumer = consumerKeys[ThreadLocalRandom.current().nextInt(consumerKeys.length)];
+        return limiter.tryAcquire("bench", consumer, policy);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.RuleSnapshot;
+import com.example.gateway.service.CompiledRoute;
+import com.example.gateway.service.RouteMatcher;
+import com.example.gateway.service.RouteTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route lookup as the proxy does it ({@link RouteTable#match}), the linear {@link RouteMatcher#matches} scan it
+ * replaced as a baseline, and the cost of compiling a whole table on publish.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteMatchBenchmark {
+    @Param({"10000", "50000"})
+    public int routes;
+
+    private final RouteMatcher matcher = new RouteMatcher();
+    private RuleSnapshot snapshot;
+    private RouteTable table;
+    private String[] paths;
+    private String[] methods;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = SyntheticRoutes.snapshot(routes, "http://localhost:9001");
+        table = RouteTable.compile(snapshot, matcher.compile(snapshot.getRoutes()));
+        paths = SyntheticRoutes.paths(snapshot);
+        methods = SyntheticRoutes.methods(snapshot);
+    }
+
+    @Benchmark
+    public CompiledRoute indexHit() {
+        int i = ThreadLocalRandom.current().nextInt(paths.length);
+        return table.match(paths[i], methods[i]);
+    }
+
+    @Benchmark
+    public CompiledRoute indexMiss() {
+        return table.match("/unknown/" + ThreadLocalRandom.current().nextInt(1024), "GET");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RouteRule linearScanHit() {
+        int i = ThreadLocalRandom.current().nextInt(paths.length);
+        List<RouteRule> rules = snapshot.getRoutes();
+        for (RouteRule rule : rules) {
+            List<String> allowed = rule.getMethods();
+            if ((allowed == null || allowed.isEmpty() || allowed.contains(methods[i]))
+                    && matcher.matches(rule.getPath(), paths[i])) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public RouteTable compileTable() {
+        return RouteTable.compile(snapshot, matcher.compile(snapshot.getRoutes()));
+    }
+}
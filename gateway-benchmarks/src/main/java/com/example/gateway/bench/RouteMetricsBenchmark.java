@@ -0,0 +1,59 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.model.RuleSnapshot;
+import com.example.gateway.service.RouteMatcher;
+import com.example.gateway.service.RouteMetricsService;
+import com.example.gateway.service.RouteTable;
+import com.example.gateway.service.metrics.RouteMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request metrics path ({@link RouteMetricsService#metrics} lookup plus hit, status and latency
+ * recording) with every thread on one hot route, or spread over the whole synthetic table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RouteMetricsBenchmark {
+    @Param({"1", "10000"})
+    public int activeRoutes;
+
+    private RouteMetricsService service;
+    private String[] routeIds;
+
+    @Setup
+    public void setUp() {
+        RuleSnapshot snapshot = SyntheticRoutes.snapshot(Math.max(activeRoutes, 1), "http://localhost:9001");
+        service = new RouteMetricsService();
+        service.onPublish(RouteTable.compile(snapshot, new RouteMatcher().compile(snapshot.getRoutes())));
+        routeIds = snapshot.getRoutes().stream().map(rule -> rule.getId()).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public RouteMetrics recordRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RouteMetrics metrics = service.metrics(routeIds[random.nextInt(routeIds.length)]);
+        metrics.recordHit();
+        metrics.recordLatency(250_000L + random.nextInt(1_000_000));
+        metrics.recordStatus(200);
+        return metrics;
+    }
+}
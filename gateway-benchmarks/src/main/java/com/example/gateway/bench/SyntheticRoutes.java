@@ -0,0 +1,84 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.RuleSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic rule sets shaped like a large deployment: a few hundred services, each with versioned literal
+ * routes, path variables, single-segment globs and catch-alls, spread across methods. Every rule targets
+ * {@code target}, so the same snapshot serves both the in-process suites and the end-to-end harness.
+ */
+public final class SyntheticRoutes {
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private SyntheticRoutes() {
+    }
+
+    public static RuleSnapshot snapshot(int count, String target) {
+        Random random = new Random(42);
+        List<RouteRule> routes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RouteRule rule = new RouteRule();
+            rule.setId("r" + i);
+            rule.setGroup("svc" + (i % 256));
+            rule.setTarget(target);
+            rule.setEnabled(Boolean.TRUE);
+            String prefix = "/svc" + (i % 256) + "/v" + (i / 256 % 4 + 1) + "/res" + i;
+            switch (i % 5) {
+                case 0 -> rule.setPath(prefix);
+                case 1 -> rule.setPath(prefix + "/{id}");
+                case 2 -> rule.setPath(prefix + "/{id:\\d+}/items");
+                case 3 -> rule.setPath(prefix + "/*.json");
+                default -> {
+                    rule.setPath(prefix + "/**");
+                    rule.setStripPrefix(3);
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                rule.setMethods(List.of(METHODS[random.nextInt(METHODS.length)]));
+            }
+            routes.add(rule);
+        }
+        RuleSnapshot snapshot = new RuleSnapshot();
+        snapshot.setVersion("synthetic-" + count);
+        snapshot.setRoutes(routes);
+        return snapshot;
+    }
+
+    /**
+     * Request paths that each match the rule at the same position, so lookups spread over the whole table.
+     */
+    public static String[] paths(RuleSnapshot snapshot) {
+        List<RouteRule> routes = snapshot.getRoutes();
+        String[] paths = new String[routes.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = samplePath(routes.get(i).getPath(), i);
+        }
+        return paths;
+    }
+
+    /**
+     * Methods that the rule at the same position in {@link #paths} accepts.
+     */
+    public static String[] methods(RuleSnapshot snapshot) {
+        List<RouteRule> routes = snapshot.getRoutes();
+        String[] methods = new String[routes.size()];
+        for (int i = 0; i < methods.length; i++) {
+            List<String> allowed = routes.get(i).getMethods();
+            methods[i] = allowed == null || allowed.isEmpty() ? "GET" : allowed.get(0);
+        }
+        return methods;
+    }
+
+    static String samplePath(String pattern, int seed) {
+        return pattern
+                .replace("{id:\\d+}", String.valueOf(seed))
+                .replace("{id}", "id" + seed)
+                .replace("*.json", "doc" + seed + ".json")
+                .replace("/**", "/a/b/" + seed);
+    }
+}
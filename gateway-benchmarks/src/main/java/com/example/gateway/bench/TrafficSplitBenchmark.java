@@ -0,0 +1,122 @@
+package com.example.gateway.bench;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.RouteVariant;
+import com.example.gateway.model.RuleSnapshot;
+import com.example.gateway.service.RouteMatcher;
+import com.example.gateway.service.RouteTable;
+import com.example.gateway.service.TrafficSplit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.AbstractServerHttpRequest;
+import org.springframework.http.server.reactive.SslInfo;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TrafficSplit#select} for a three-way split, drawing at random or hashing a header or the client
+ * address. Run with {@code -prof gc}: the random and address cases allocate nothing per request; the header case
+ * pays for Spring's case-insensitive header map here, which Reactor Netty's native headers avoid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrafficSplitBenchmark {
+    private static final int REQUESTS = 1024;
+
+    @Param({"random", "header:X-User", "ip"})
+    public String splitKey;
+
+    private TrafficSplit split;
+    private Request[] requests;
+
+    @Setup
+    public void setUp() {
+        RouteRule rule = new RouteRule();
+        rule.setId("split");
+        rule.setPath("/split/**");
+        rule.setTarget("http://localhost:9001");
+        rule.setSplitKey(splitKey);
+        rule.setVariants(List.of(variant("canary", 5, "http://localhost:9002"),
+                variant("beta", 20, "http://localhost:9003")));
+        RuleSnapshot snapshot = new RuleSnapshot();
+        snapshot.setRoutes(List.of(rule));
+        split = RouteTable.compile(snapshot, new RouteMatcher().compile(snapshot.getRoutes())).route(0).split();
+        requests = new Request[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-User", "user-" + i);
+            requests[i] = new Request(headers, new InetSocketAddress("10.0." + (i >> 8) + "." + (i & 255), 40000));
+        }
+    }
+
+    @Benchmark
+    public int select() {
+        return split.select(requests[ThreadLocalRandom.current().nextInt(REQUESTS)]);
+    }
+
+    private static RouteVariant variant(String name, int weight, String target) {
+        RouteVariant variant = new RouteVariant();
+        variant.setName(name);
+        variant.setWeight(weight);
+        variant.setTarget(target);
+        return variant;
+    }
+
+    private static final class Request extends AbstractServerHttpRequest {
+        private final InetSocketAddress remote;
+
+        Request(HttpHeaders headers, InetSocketAddress remote) {
+            super(HttpMethod.GET, URI.create("http://localhost/split/x"), null, headers);
+            this.remote = remote;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return remote;
+        }
+
+        @Override
+        protected MultiValueMap<String, HttpCookie> initCookies() {
+            return new LinkedMultiValueMap<>();
+        }
+
+        @Override
+        protected SslInfo initSslInfo() {
+            return null;
+        }
+
+        @Override
+        public <T> T getNativeRequest() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.empty();
+        }
+    }
+}
@@ -2,9 +2,26 @@ package com.example.gateway.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "gateway")
 public class GatewayProperties {
     private String dataPath = "./data/routes.json";
+    private RateLimit rateLimit = new RateLimit();
+    private Upstream upstream = new Upstream();
+    private Reload reload = new Reload();
+    private Storage storage = new Storage();
+    private Mock mock = new Mock();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Cache cache = new Cache();
+    private Auth auth = new Auth();
+    private Listener listener = new Listener();
+    private Compression compression = new Compression();
+    private Blocking blocking = new Blocking();
+    private Retry retry = new Retry();
 
     public String getDataPath() {
         return dataPath;
@@ -13,4 +30,707 @@ public class GatewayProperties {
     public void setDataPath(String dataPath) {
         this.dataPath = dataPath;
     }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Upstream getUpstream() {
+        return upstream;
+    }
+
+    public void setUpstream(Upstream upstream) {
+        this.upstream = upstream;
+    }
+
+    public Reload getReload() {
+        return reload;
+    }
+
+    public void setReload(Reload reload) {
+        this.reload = reload;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public void setStorage(Storage storage) {
+        this.storage = storage;
+    }
+
+    public Mock getMock() {
+        return mock;
+    }
+
+    public void setMock(Mock mock) {
+        this.mock = mock;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Auth getAuth() {
+        return auth;
+    }
+
+    public void setAuth(Auth auth) {
+        this.auth = auth;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Blocking getBlocking() {
+        return blocking;
+    }
+
+    public void setBlocking(Blocking blocking) {
+        this.blocking = blocking;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public void setRetry(Retry retry) {
+        this.retry = retry;
+    }
+
+    public static class Blocking {
+        private String mode = "auto";
+        private int maxQueued = 10000;
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+    }
+
+    public static class Retry {
+        private double budgetRatio = 0.1;
+        private int budgetMinPerSecond = 10;
+        private int budgetWindowSeconds = 10;
+        private long replayMaxBytes = 64 * 1024;
+        private long hedgeMinDelayMs = 5;
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getBudgetMinPerSecond() {
+            return budgetMinPerSecond;
+        }
+
+        public void setBudgetMinPerSecond(int budgetMinPerSecond) {
+            this.budgetMinPerSecond = budgetMinPerSecond;
+        }
+
+        public int getBudgetWindowSeconds() {
+            return budgetWindowSeconds;
+        }
+
+        public void setBudgetWindowSeconds(int budgetWindowSeconds) {
+            this.budgetWindowSeconds = budgetWindowSeconds;
+        }
+
+        public long getReplayMaxBytes() {
+            return replayMaxBytes;
+        }
+
+        public void setReplayMaxBytes(long replayMaxBytes) {
+            this.replayMaxBytes = replayMaxBytes;
+        }
+
+        public long getHedgeMinDelayMs() {
+            return hedgeMinDelayMs;
+        }
+
+        public void setHedgeMinDelayMs(long hedgeMinDelayMs) {
+            this.hedgeMinDelayMs = hedgeMinDelayMs;
+        }
+    }
+
+    public static class Compression {
+        private int minBytes = 1024;
+        private int level = 6;
+        private List<String> types = new ArrayList<>(List.of("application/json", "application/*+json",
+                "application/javascript", "application/xml", "application/*+xml", "text/*"));
+
+        public int getMinBytes() {
+            return minBytes;
+        }
+
+        public void setMinBytes(int minBytes) {
+            this.minBytes = minBytes;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public List<String> getTypes() {
+            return types;
+        }
+
+        public void setTypes(List<String> types) {
+            this.types = types;
+        }
+    }
+
+    public static class Listener {
+        private int maxConcurrentStreams = 256;
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+    }
+
+    public static class RateLimit {
+        private long bucketIdleMs = 60000;
+        private long evictIntervalMs = 30000;
+        private String mode = "local";
+        private String coordinator = "loopback";
+        private String nodeId = "";
+        private long leaseMs = 100;
+        private int clusterNodes = 1;
+        private long coordinatorRetryMs = 5000;
+        private long leaseTimeoutMs = 1000;
+
+        public long getBucketIdleMs() {
+            return bucketIdleMs;
+        }
+
+        public void setBucketIdleMs(long bucketIdleMs) {
+            this.bucketIdleMs = bucketIdleMs;
+        }
+
+        public long getEvictIntervalMs() {
+            return evictIntervalMs;
+        }
+
+        public void setEvictIntervalMs(long evictIntervalMs) {
+            this.evictIntervalMs = evictIntervalMs;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public String getCoordinator() {
+            return coordinator;
+        }
+
+        public void setCoordinator(String coordinator) {
+            this.coordinator = coordinator;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public long getLeaseMs() {
+            return leaseMs;
+        }
+
+        public void setLeaseMs(long leaseMs) {
+            this.leaseMs = leaseMs;
+        }
+
+        public int getClusterNodes() {
+            return clusterNodes;
+        }
+
+        public void setClusterNodes(int clusterNodes) {
+            this.clusterNodes = clusterNodes;
+        }
+
+        public long getCoordinatorRetryMs() {
+            return coordinatorRetryMs;
+        }
+
+        public void setCoordinatorRetryMs(long coordinatorRetryMs) {
+            this.coordinatorRetryMs = coordinatorRetryMs;
+        }
+
+        public long getLeaseTimeoutMs() {
+            return leaseTimeoutMs;
+        }
+
+        public void setLeaseTimeoutMs(long leaseTimeoutMs) {
+            this.leaseTimeoutMs = leaseTimeoutMs;
+        }
+    }
+
+    public static class Reload {
+        private long debounceMs = 100;
+        private long fallbackCheckMs = 60000;
+
+        public long getDebounceMs() {
+            return debounceMs;
+        }
+
+        public void setDebounceMs(long debounceMs) {
+            this.debounceMs = debounceMs;
+        }
+
+        public long getFallbackCheckMs() {
+            return fallbackCheckMs;
+        }
+
+        public void setFallbackCheckMs(long fallbackCheckMs) {
+            this.fallbackCheckMs = fallbackCheckMs;
+        }
+    }
+
+    public static class Storage {
+        private int compactAfterEntries = 1000;
+        private long compactIntervalMs = 60000;
+        private int historySize = 20;
+        private long batchWindowMs = 5;
+        private int batchMaxCommands = 256;
+        private int importChunkSize = 2000;
+
+        public int getCompactAfterEntries() {
+            return compactAfterEntries;
+        }
+
+        public void setCompactAfterEntries(int compactAfterEntries) {
+            this.compactAfterEntries = compactAfterEntries;
+        }
+
+        public long getCompactIntervalMs() {
+            return compactIntervalMs;
+        }
+
+        public void setCompactIntervalMs(long compactIntervalMs) {
+            this.compactIntervalMs = compactIntervalMs;
+        }
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(int historySize) {
+            this.historySize = historySize;
+        }
+
+        public long getBatchWindowMs() {
+            return batchWindowMs;
+        }
+
+        public void setBatchWindowMs(long batchWindowMs) {
+            this.batchWindowMs = batchWindowMs;
+        }
+
+        public int getBatchMaxCommands() {
+            return batchMaxCommands;
+        }
+
+        public void setBatchMaxCommands(int batchMaxCommands) {
+            this.batchMaxCommands = batchMaxCommands;
+        }
+
+        public int getImportChunkSize() {
+            return importChunkSize;
+        }
+
+        public void setImportChunkSize(int importChunkSize) {
+            this.importChunkSize = importChunkSize;
+        }
+    }
+
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        private int windowSeconds = 10;
+        private int minimumCalls = 20;
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 80;
+        private long slowCallDurationMs = 2000;
+        private long openDurationMs = 10000;
+        private int halfOpenCalls = 5;
+        private int consecutiveFailures = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public long getSlowCallDurationMs() {
+            return slowCallDurationMs;
+        }
+
+        public void setSlowCallDurationMs(long slowCallDurationMs) {
+            this.slowCallDurationMs = slowCallDurationMs;
+        }
+
+        public long getOpenDurationMs() {
+            return openDurationMs;
+        }
+
+        public void setOpenDurationMs(long openDurationMs) {
+            this.openDurationMs = openDurationMs;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+    }
+
+    public static class Auth {
+        private int verifiedCacheSize = 10000;
+        private Map<String, String> jwkSets = new LinkedHashMap<>();
+        private long jwksRefreshMs = 60000;
+        private int tokenCacheSize = 10000;
+        private long clockSkewSeconds = 30;
+        private long hmacMaxSkewSeconds = 300;
+        private int hmacReplayCacheSize = 100000;
+
+        public int getVerifiedCacheSize() {
+            return verifiedCacheSize;
+        }
+
+        public void setVerifiedCacheSize(int verifiedCacheSize) {
+            this.verifiedCacheSize = verifiedCacheSize;
+        }
+
+        public Map<String, String> getJwkSets() {
+            return jwkSets;
+        }
+
+        public void setJwkSets(Map<String, String> jwkSets) {
+            this.jwkSets = jwkSets;
+        }
+
+        public long getJwksRefreshMs() {
+            return jwksRefreshMs;
+        }
+
+        public void setJwksRefreshMs(long jwksRefreshMs) {
+            this.jwksRefreshMs = jwksRefreshMs;
+        }
+
+        public int getTokenCacheSize() {
+            return tokenCacheSize;
+        }
+
+        public void setTokenCacheSize(int tokenCacheSize) {
+            this.tokenCacheSize = tokenCacheSize;
+        }
+
+        public long getClockSkewSeconds() {
+            return clockSkewSeconds;
+        }
+
+        public void setClockSkewSeconds(long clockSkewSeconds) {
+            this.clockSkewSeconds = clockSkewSeconds;
+        }
+
+        public long getHmacMaxSkewSeconds() {
+            return hmacMaxSkewSeconds;
+        }
+
+        public void setHmacMaxSkewSeconds(long hmacMaxSkewSeconds) {
+            this.hmacMaxSkewSeconds = hmacMaxSkewSeconds;
+        }
+
+        public int getHmacReplayCacheSize() {
+            return hmacReplayCacheSize;
+        }
+
+        public void setHmacReplayCacheSize(int hmacReplayCacheSize) {
+            this.hmacReplayCacheSize = hmacReplayCacheSize;
+        }
+    }
+
+    public static class Cache {
+        private long maxBytes = 64L * 1024 * 1024;
+        private int maxOversizedKeys = 10000;
+        private long coalesceMaxBodyBytes = 1024 * 1024;
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxOversizedKeys() {
+            return maxOversizedKeys;
+        }
+
+        public void setMaxOversizedKeys(int maxOversizedKeys) {
+            this.maxOversizedKeys = maxOversizedKeys;
+        }
+
+        public long getCoalesceMaxBodyBytes() {
+            return coalesceMaxBodyBytes;
+        }
+
+        public void setCoalesceMaxBodyBytes(long coalesceMaxBodyBytes) {
+            this.coalesceMaxBodyBytes = coalesceMaxBodyBytes;
+        }
+    }
+
+    public static class Upstream {
+        private Pool pool = new Pool();
+        private Map<String, Pool> hosts = new LinkedHashMap<>();
+        private long drainTimeoutMs = 30000;
+
+        public Pool getPool() {
+            return pool;
+        }
+
+        public void setPool(Pool pool) {
+            this.pool = pool;
+        }
+
+        public Map<String, Pool> getHosts() {
+            return hosts;
+        }
+
+        public void setHosts(Map<String, Pool> hosts) {
+            this.hosts = hosts;
+        }
+
+        public long getDrainTimeoutMs() {
+            return drainTimeoutMs;
+        }
+
+        public void setDrainTimeoutMs(long drainTimeoutMs) {
+            this.drainTimeoutMs = drainTimeoutMs;
+        }
+    }
+
+    public static class Pool {
+        private int maxConnections = 200;
+        private int pendingAcquireMaxCount = 1000;
+        private long pendingAcquireTimeoutMs = 5000;
+        private long maxIdleTimeMs = 30000;
+        private long maxLifeTimeMs = 300000;
+        private long evictIntervalMs = 30000;
+        private boolean keepAlive = true;
+        private int maxConcurrentStreams = 100;
+        private long connectTimeoutMs = 3000;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public long getPendingAcquireTimeoutMs() {
+            return pendingAcquireTimeoutMs;
+        }
+
+        public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) {
+            this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+        }
+
+        public long getMaxIdleTimeMs() {
+            return maxIdleTimeMs;
+        }
+
+        public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+            this.maxIdleTimeMs = maxIdleTimeMs;
+        }
+
+        public long getMaxLifeTimeMs() {
+            return maxLifeTimeMs;
+        }
+
+        public void setMaxLifeTimeMs(long maxLifeTimeMs) {
+            this.maxLifeTimeMs = maxLifeTimeMs;
+        }
+
+        public long getEvictIntervalMs() {
+            return evictIntervalMs;
+        }
+
+        public void setEvictIntervalMs(long evictIntervalMs) {
+            this.evictIntervalMs = evictIntervalMs;
+        }
+
+        public boolean isKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public long getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(long connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+    }
+
+    public static class Mock {
+        private List<Integer> ports = new ArrayList<>(List.of(9001));
+        private Map<Integer, Long> latencyMs = new LinkedHashMap<>();
+        private Map<Integer, Integer> errorPercent = new LinkedHashMap<>();
+        private boolean h2c;
+
+        public List<Integer> getPorts() {
+            return ports;
+        }
+
+        public void setPorts(List<Integer> ports) {
+            this.ports = ports;
+        }
+
+        public Map<Integer, Long> getLatencyMs() {
+            return latencyMs;
+        }
+
+        public void setLatencyMs(Map<Integer, Long> latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        public Map<Integer, Integer> getErrorPercent() {
+            return errorPercent;
+        }
+
+        public void setErrorPercent(Map<Integer, Integer> errorPercent) {
+            this.errorPercent = errorPercent;
+        }
+
+        public boolean isH2c() {
+            return h2c;
+        }
+
+        public void setH2c(boolean h2c) {
+            this.h2c = h2c;
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.gateway.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP/2 settings of the inbound listener. Spring Boot turns HTTP/2 on with {@code server.http2.enabled}: over
+ * TLS ({@code server.ssl.*}) clients negotiate {@code h2} through ALPN, otherwise the port accepts cleartext
+ * {@code h2c} (prior knowledge or upgrade) next to HTTP/1.1.
+ */
+@Component
+public class ListenerCustomizer implements WebServerFactoryCustomizer<NettyReactiveWebServerFactory> {
+    private final GatewayProperties.Listener listener;
+
+    public ListenerCustomizer(GatewayProperties properties) {
+        this.listener = properties.getListener();
+    }
+
+    @Override
+    public void customize(NettyReactiveWebServerFactory factory) {
+        factory.addServerCustomizers(server -> server.http2Settings(settings -> settings
+                .maxConcurrentStreams(listener.getMaxConcurrentStreams())));
+    }
+}
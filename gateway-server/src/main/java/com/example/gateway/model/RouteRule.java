@@ -1,20 +1,50 @@
 package com.example.gateway.model;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class RouteRule {
     private String id;
     private String path;
     private List<String> methods;
     private String target;
+    private List<UpstreamTarget> targets;
+    private String loadBalancer;
+    private String upstreamProtocol;
+    private List<RouteVariant> variants;
+    private String splitKey;
     private Integer stripPrefix;
     private String rewrite;
     private String group;
     private String authType;
     private String apiKey;
+    private String jwkSet;
+    private String jwtIssuer;
+    private String jwtAudience;
+    private Map<String, String> claimHeaders;
     private Integer rateLimitQps;
+    private Integer rateLimitBurst;
+    private String rateLimitKey;
     private Boolean enabled;
     private Integer timeoutMs;
+    private Integer totalTimeoutMs;
+    private Long maxBodyBytes;
+    private Integer retryAttempts;
+    private Integer retryBackoffMs;
+    private List<Integer> retryStatuses;
+    private Boolean hedge;
+    private Integer hedgeDelayMs;
+    private Integer cacheTtlMs;
+    private List<String> cacheVaryHeaders;
+    private Long cacheMaxEntryBytes;
+    private Boolean coalesce;
+    private List<String> coalesceHeaders;
+    private Boolean compression;
+    private Integer compressionMinBytes;
+    private List<String> compressionTypes;
+    private Map<String, String> requestHeaders;
+    private Map<String, String> responseHeaders;
     private String createdAt;
     private String updatedAt;
 
@@ -50,6 +80,46 @@ public class RouteRule {
         this.target = target;
     }
 
+    public List<UpstreamTarget> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<UpstreamTarget> targets) {
+        this.targets = targets;
+    }
+
+    public String getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    public void setLoadBalancer(String loadBalancer) {
+        this.loadBalancer = loadBalancer;
+    }
+
+    public String getUpstreamProtocol() {
+        return upstreamProtocol;
+    }
+
+    public void setUpstreamProtocol(String upstreamProtocol) {
+        this.upstreamProtocol = upstreamProtocol;
+    }
+
+    public List<RouteVariant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<RouteVariant> variants) {
+        this.variants = variants;
+    }
+
+    public String getSplitKey() {
+        return splitKey;
+    }
+
+    public void setSplitKey(String splitKey) {
+        this.splitKey = splitKey;
+    }
+
     public Integer getStripPrefix() {
         return stripPrefix;
     }
@@ -90,6 +160,38 @@ public class RouteRule {
         this.apiKey = apiKey;
     }
 
+    public String getJwkSet() {
+        return jwkSet;
+    }
+
+    public void setJwkSet(String jwkSet) {
+        this.jwkSet = jwkSet;
+    }
+
+    public String getJwtIssuer() {
+        return jwtIssuer;
+    }
+
+    public void setJwtIssuer(String jwtIssuer) {
+        this.jwtIssuer = jwtIssuer;
+    }
+
+    public String getJwtAudience() {
+        return jwtAudience;
+    }
+
+    public void setJwtAudience(String jwtAudience) {
+        this.jwtAudience = jwtAudience;
+    }
+
+    public Map<String, String> getClaimHeaders() {
+        return claimHeaders;
+    }
+
+    public void setClaimHeaders(Map<String, String> claimHeaders) {
+        this.claimHeaders = claimHeaders;
+    }
+
     public Integer getRateLimitQps() {
         return rateLimitQps;
     }
@@ -98,6 +200,22 @@ public class RouteRule {
         this.rateLimitQps = rateLimitQps;
     }
 
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(Integer rateLimitBurst) {
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    public String getRateLimitKey() {
+        return rateLimitKey;
+    }
+
+    public void setRateLimitKey(String rateLimitKey) {
+        this.rateLimitKey = rateLimitKey;
+    }
+
     public Boolean getEnabled() {
         return enabled;
     }
@@ -114,6 +232,142 @@ public class RouteRule {
         this.timeoutMs = timeoutMs;
     }
 
+    public Integer getTotalTimeoutMs() {
+        return totalTimeoutMs;
+    }
+
+    public void setTotalTimeoutMs(Integer totalTimeoutMs) {
+        this.totalTimeoutMs = totalTimeoutMs;
+    }
+
+    public Long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public void setMaxBodyBytes(Long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public Integer getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    public void setRetryAttempts(Integer retryAttempts) {
+        this.retryAttempts = retryAttempts;
+    }
+
+    public Integer getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(Integer retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public List<Integer> getRetryStatuses() {
+        return retryStatuses;
+    }
+
+    public void setRetryStatuses(List<Integer> retryStatuses) {
+        this.retryStatuses = retryStatuses;
+    }
+
+    public Boolean getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(Boolean hedge) {
+        this.hedge = hedge;
+    }
+
+    public Integer getHedgeDelayMs() {
+        return hedgeDelayMs;
+    }
+
+    public void setHedgeDelayMs(Integer hedgeDelayMs) {
+        this.hedgeDelayMs = hedgeDelayMs;
+    }
+
+    public Integer getCacheTtlMs() {
+        return cacheTtlMs;
+    }
+
+    public void setCacheTtlMs(Integer cacheTtlMs) {
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    public List<String> getCacheVaryHeaders() {
+        return cacheVaryHeaders;
+    }
+
+    public void setCacheVaryHeaders(List<String> cacheVaryHeaders) {
+        this.cacheVaryHeaders = cacheVaryHeaders;
+    }
+
+    public Long getCacheMaxEntryBytes() {
+        return cacheMaxEntryBytes;
+    }
+
+    public void setCacheMaxEntryBytes(Long cacheMaxEntryBytes) {
+        this.cacheMaxEntryBytes = cacheMaxEntryBytes;
+    }
+
+    public Boolean getCoalesce() {
+        return coalesce;
+    }
+
+    public void setCoalesce(Boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    public List<String> getCoalesceHeaders() {
+        return coalesceHeaders;
+    }
+
+    public void setCoalesceHeaders(List<String> coalesceHeaders) {
+        this.coalesceHeaders = coalesceHeaders;
+    }
+
+    public Boolean getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Boolean compression) {
+        this.compression = compression;
+    }
+
+    public Integer getCompressionMinBytes() {
+        return compressionMinBytes;
+    }
+
+    public void setCompressionMinBytes(Integer compressionMinBytes) {
+        this.compressionMinBytes = compressionMinBytes;
+    }
+
+    public List<String> getCompressionTypes() {
+        return compressionTypes;
+    }
+
+    public void setCompressionTypes(List<String> compressionTypes) {
+        this.compressionTypes = compressionTypes;
+    }
+
+    public Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public void setRequestHeaders(Map<String, String> requestHeaders) {
+        this.requestHeaders = requestHeaders;
+    }
+
+    public Map<String, String> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public void setResponseHeaders(Map<String, String> responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
     public String getCreatedAt() {
         return createdAt;
     }
@@ -129,4 +383,111 @@ public class RouteRule {
     public void setUpdatedAt(String updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    /**
+     * A shallow copy: list and map fields are shared with this rule.
+     */
+    public RouteRule copy() {
+        RouteRule copy = new RouteRule();
+        copy.setId(id);
+        copy.setPath(path);
+        copy.setMethods(methods);
+        copy.setTarget(target);
+        copy.setTargets(targets);
+        copy.setLoadBalancer(loadBalancer);
+        copy.setUpstreamProtocol(upstreamProtocol);
+        copy.setVariants(variants);
+        copy.setSplitKey(splitKey);
+        copy.setStripPrefix(stripPrefix);
+        copy.setRewrite(rewrite);
+        copy.setGroup(group);
+        copy.setAuthType(authType);
+        copy.setApiKey(apiKey);
+        copy.setJwkSet(jwkSet);
+        copy.setJwtIssuer(jwtIssuer);
+        copy.setJwtAudience(jwtAudience);
+        copy.setClaimHeaders(claimHeaders);
+        copy.setRateLimitQps(rateLimitQps);
+        copy.setRateLimitBurst(rateLimitBurst);
+        copy.setRateLimitKey(rateLimitKey);
+        copy.setEnabled(enabled);
+        copy.setTimeoutMs(timeoutMs);
+        copy.setTotalTimeoutMs(totalTimeoutMs);
+        copy.setMaxBodyBytes(maxBodyBytes);
+        copy.setRetryAttempts(retryAttempts);
+        copy.setRetryBackoffMs(retryBackoffMs);
+        copy.setRetryStatuses(retryStatuses);
+        copy.setHedge(hedge);
+        copy.setHedgeDelayMs(hedgeDelayMs);
+        copy.setCacheTtlMs(cacheTtlMs);
+        copy.setCacheVaryHeaders(cacheVaryHeaders);
+        copy.setCacheMaxEntryBytes(cacheMaxEntryBytes);
+        copy.setCoalesce(coalesce);
+        copy.setCoalesceHeaders(coalesceHeaders);
+        copy.setCompression(compression);
+        copy.setCompressionMinBytes(compressionMinBytes);
+        copy.setCompressionTypes(compressionTypes);
+        copy.setRequestHeaders(requestHeaders);
+        copy.setResponseHeaders(responseHeaders);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RouteRule other)) {
+            return false;
+        }
+        return Objects.equals(id, other.id)
+                && Objects.equals(path, other.path)
+                && Objects.equals(methods, other.methods)
+                && Objects.equals(target, other.target)
+                && Objects.equals(targets, other.targets)
+                && Objects.equals(loadBalancer, other.loadBalancer)
+                && Objects.equals(upstreamProtocol, other.upstreamProtocol)
+                && Objects.equals(variants, other.variants)
+                && Objects.equals(splitKey, other.splitKey)
+                && Objects.equals(stripPrefix, other.stripPrefix)
+                && Objects.equals(rewrite, other.rewrite)
+                && Objects.equals(group, other.group)
+                && Objects.equals(authType, other.authType)
+                && Objects.equals(apiKey, other.apiKey)
+                && Objects.equals(jwkSet, other.jwkSet)
+                && Objects.equals(jwtIssuer, other.jwtIssuer)
+                && Objects.equals(jwtAudience, other.jwtAudience)
+                && Objects.equals(claimHeaders, other.claimHeaders)
+                && Objects.equals(rateLimitQps, other.rateLimitQps)
+                && Objects.equals(rateLimitBurst, other.rateLimitBurst)
+                && Objects.equals(rateLimitKey, other.rateLimitKey)
+                && Objects.equals(enabled, other.enabled)
+                && Objects.equals(timeoutMs, other.timeoutMs)
+                && Objects.equals(totalTimeoutMs, other.totalTimeoutMs)
+                && Objects.equals(maxBodyBytes, other.maxBodyBytes)
+                && Objects.equals(retryAttempts, other.retryAttempts)
+                && Objects.equals(retryBackoffMs, other.retryBackoffMs)
+                && Objects.equals(retryStatuses, other.retryStatuses)
+                && Objects.equals(hedge, other.hedge)
+                && Objects.equals(hedgeDelayMs, other.hedgeDelayMs)
+                && Objects.equals(cacheTtlMs, other.cacheTtlMs)
+                && Objects.equals(cacheVaryHeaders, other.cacheVaryHeaders)
+                && Objects.equals(cacheMaxEntryBytes, other.cacheMaxEntryBytes)
+                && Objects.equals(coalesce, other.coalesce)
+                && Objects.equals(coalesceHeaders, other.coalesceHeaders)
+                && Objects.equals(compression, other.compression)
+                && Objects.equals(compressionMinBytes, other.compressionMinBytes)
+                && Objects.equals(compressionTypes, other.compressionTypes)
+                && Objects.equals(requestHeaders, other.requestHeaders)
+                && Objects.equals(responseHeaders, other.responseHeaders)
+                && Objects.equals(createdAt, other.createdAt)
+                && Objects.equals(updatedAt, other.updatedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, path, methods, target, updatedAt);
+    }
 }
@@ -0,0 +1,97 @@
+package com.example.gateway.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One side of a traffic split on a {@link RouteRule}. {@code weight} is the percentage of the route's traffic
+ * sent to this variant; the set fields replace the rule's own, everything else is inherited from the rule.
+ */
+public class RouteVariant {
+    private String name;
+    private Integer weight;
+    private String target;
+    private List<UpstreamTarget> targets;
+    private String rewrite;
+    private Integer timeoutMs;
+    private Map<String, String> requestHeaders;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public List<UpstreamTarget> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<UpstreamTarget> targets) {
+        this.targets = targets;
+    }
+
+    public String getRewrite() {
+        return rewrite;
+    }
+
+    public void setRewrite(String rewrite) {
+        this.rewrite = rewrite;
+    }
+
+    public Integer getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(Integer timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public void setRequestHeaders(Map<String, String> requestHeaders) {
+        this.requestHeaders = requestHeaders;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RouteVariant other)) {
+            return false;
+        }
+        return Objects.equals(name, other.name)
+                && Objects.equals(weight, other.weight)
+                && Objects.equals(target, other.target)
+                && Objects.equals(targets, other.targets)
+                && Objects.equals(rewrite, other.rewrite)
+                && Objects.equals(timeoutMs, other.timeoutMs)
+                && Objects.equals(requestHeaders, other.requestHeaders);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, weight, target);
+    }
+}
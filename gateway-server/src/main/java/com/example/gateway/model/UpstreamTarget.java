@@ -0,0 +1,41 @@
+package com.example.gateway.model;
+
+import java.util.Objects;
+
+public class UpstreamTarget {
+    private String url;
+    private Integer weight;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UpstreamTarget other)) {
+            return false;
+        }
+        return Objects.equals(url, other.url)
+                && Objects.equals(weight, other.weight);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(url, weight);
+    }
+}
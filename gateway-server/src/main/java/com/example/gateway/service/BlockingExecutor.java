@@ -0,0 +1,98 @@
+package com.example.gateway.service;
+
+import com.example.gateway.config.GatewayProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single writer behind every blocking change to rule and key files, so that disk I/O never runs on a Netty
+ * event loop and concurrent admin edits queue behind each other instead of racing the copy-on-write snapshot.
+ * Tasks run one at a time, in submission order, on a virtual thread when the JVM has them (Java 21+) and
+ * {@code gateway.blocking.mode} allows it, otherwise on a one-thread bounded elastic scheduler. At most
+ * {@code gateway.blocking.max-queued} tasks wait; beyond that a write fails with a
+ * {@link RejectedExecutionException}.
+ */
+@Component
+public class BlockingExecutor {
+    private static final Logger log = LoggerFactory.getLogger(BlockingExecutor.class);
+    private static final String THREAD_NAME = "gateway-writer";
+
+    private final Scheduler writer;
+    private final boolean virtual;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public BlockingExecutor(GatewayProperties properties) {
+        GatewayProperties.Blocking config = properties.getBlocking();
+        String mode = config.getMode() == null ? "auto" : config.getMode().trim().toLowerCase(Locale.ROOT);
+        ThreadFactory virtualThreads = mode.equals("elastic") ? null : virtualThreadFactory();
+        if (virtualThreads == null && mode.equals("virtual")) {
+            log.warn("Virtual threads need Java 21+, running blocking work on a bounded elastic scheduler");
+        }
+        this.virtual = virtualThreads != null;
+        if (virtual) {
+            ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(config.getMaxQueued()), virtualThreads);
+            this.writer = Schedulers.fromExecutorService(executor, THREAD_NAME);
+        } else {
+            this.writer = Schedulers.newBoundedElastic(1, config.getMaxQueued(), THREAD_NAME, 60, true);
+        }
+    }
+
+    /**
+     * Runs {@code task} after every task submitted before it.
+     */
+    public <T> Mono<T> write(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .doOnSuccess(value -> completed.increment())
+                .doOnError(ex -> failed.increment())
+                .subscribeOn(writer)
+                .doOnSubscribe(subscription -> pending.incrementAndGet())
+                .doFinally(signal -> pending.decrementAndGet());
+    }
+
+    public ExecutorStats stats() {
+        return new ExecutorStats(virtual ? "virtual" : "bounded-elastic", pending.get(), completed.sum(),
+                failed.sum());
+    }
+
+    @PreDestroy
+    public void close() {
+        writer.dispose();
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name(...).factory()}, looked up reflectively because the project compiles for
+     * Java 17; {@code null} on JVMs without virtual threads.
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> type = Class.forName("java.lang.Thread$Builder");
+            builder = type.getMethod("name", String.class).invoke(builder, THREAD_NAME);
+            return (ThreadFactory) type.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    public record ExecutorStats(String mode, int pending, long completed, long failed) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.cache.CachePolicy;
+import com.example.gateway.service.cache.CoalescePolicy;
+import com.example.gateway.service.filter.FilterChain;
+import com.example.gateway.service.upstream.RetryPolicy;
+import com.example.gateway.service.upstream.UpstreamBalancer;
+import com.example.gateway.service.upstream.UpstreamLimits;
+
+/**
+ * Per-rule state compiled once when a snapshot is published and shared by every request it matches. A rule
+ * with variants also carries its {@link TrafficSplit}; the request is then served by the variant it selects.
+ */
+public record CompiledRoute(int ordinal, RouteRule rule, UpstreamBalancer upstreams, FilterChain filters,
+                            UpstreamLimits limits, CachePolicy cache, CoalescePolicy coalesce, RetryPolicy retry,
+                            TrafficSplit split) {
+
+    CompiledRoute withOrdinal(int ordinal) {
+        return new CompiledRoute(ordinal, rule, upstreams, filters, limits, cache, coalesce, retry, split);
+    }
+
+    CompiledRoute withSplit(TrafficSplit split) {
+        return new CompiledRoute(ordinal, rule, upstreams, filters, limits, cache, coalesce, retry, split);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwarding instructions compiled from a {@link RouteRule}: the target split into scheme, host, port and
+ * base path, the rewrite template cut into literal pieces around its {@code $1} capture slots, and the
+ * strip-prefix offset. Building the upstream URI only appends path segments into a per-thread builder.
+ */
+public final class ForwardPlan {
+    private static final String CAPTURE = "$1";
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String scheme;
+    private final String host;
+    private final int port;
+    private final String basePath;
+    private final String origin;
+    private final String upstreamKey;
+    private final String targetError;
+    private final String[] rewritePieces;
+    private final int captureSegment;
+    private final int stripPrefix;
+
+    private ForwardPlan(String scheme, String host, int port, String basePath, String origin, String targetError,
+                        String[] rewritePieces, int captureSegment, int stripPrefix) {
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.basePath = basePath;
+        this.origin = origin;
+        this.upstreamKey = host == null ? null : scheme + "://" + host + ":" + effectivePort(scheme, port);
+        this.targetError = targetError;
+        this.rewritePieces = rewritePieces;
+        this.captureSegment = captureSegment;
+        this.stripPrefix = stripPrefix;
+    }
+
+    public static ForwardPlan compile(RouteRule route) {
+        return compile(route, route.getTarget());
+    }
+
+    /**
+     * Compiles the rule's rewrite and strip-prefix against one of its upstream targets.
+     */
+    public static ForwardPlan compile(RouteRule route, String targetUrl) {
+        String target = targetUrl == null ? "" : targetUrl;
+        String base = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        String scheme = null;
+        String host = null;
+        int port = -1;
+        String basePath = "";
+        String targetError = null;
+        try {
+            URI uri = URI.create(base);
+            scheme = uri.getScheme();
+            host = uri.getHost();
+            port = uri.getPort();
+            basePath = uri.getRawPath() == null ? "" : uri.getRawPath();
+        } catch (IllegalArgumentException ex) {
+            targetError = ex.getMessage();
+        }
+
+        String[] rewritePieces = null;
+        int captureSegment = -1;
+        if (StringUtils.hasText(route.getRewrite())) {
+            rewritePieces = splitTemplate(route.getRewrite());
+            if (rewritePieces.length > 1) {
+                captureSegment = firstWildcardSegment(route.getPath());
+            }
+        }
+        int strip = route.getStripPrefix() == null ? 0 : Math.max(0, route.getStripPrefix());
+        return new ForwardPlan(scheme, host, port, basePath, base, targetError, rewritePieces, captureSegment, strip);
+    }
+
+    public String scheme() {
+        return scheme;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public String basePath() {
+        return basePath;
+    }
+
+    public String origin() {
+        return origin;
+    }
+
+    /**
+     * {@code scheme://host:port} of the target, used to pick the upstream connection pool; {@code null}
+     * when the target has no host.
+     */
+    public String upstreamKey() {
+        return upstreamKey;
+    }
+
+    /**
+     * Builds the upstream URI for an inbound path and raw query.
+     *
+     * @throws IllegalArgumentException when the target or the resulting URI is invalid
+     */
+    public URI targetUri(String path, String rawQuery) {
+        if (targetError != null) {
+            throw new IllegalArgumentException(targetError);
+        }
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.append(origin);
+        int pathStart = builder.length();
+        appendForwardPath(builder, path);
+        if (builder.length() == pathStart || builder.charAt(pathStart) != '/') {
+            builder.insert(pathStart, '/');
+        }
+        if (StringUtils.hasText(rawQuery)) {
+            builder.append('?').append(rawQuery);
+        }
+        return URI.create(builder.toString());
+    }
+
+    /**
+     * Returns the path sent upstream, after rewrite or strip-prefix.
+     */
+    public String forwardPath(String path) {
+        StringBuilder builder = new StringBuilder(path.length());
+        appendForwardPath(builder, path);
+        return builder.toString();
+    }
+
+    private void appendForwardPath(StringBuilder builder, String path) {
+        if (rewritePieces != null) {
+            appendRewrite(builder, path);
+        } else if (stripPrefix > 0) {
+            int start = segmentStart(path, stripPrefix);
+            if (start < 0) {
+                builder.append('/');
+            } else {
+                appendSegments(builder, path, start, true, true);
+            }
+        } else {
+            builder.append(path);
+        }
+    }
+
+    private void appendRewrite(StringBuilder builder, String path) {
+        builder.append(rewritePieces[0]);
+        if (rewritePieces.length == 1) {
+            return;
+        }
+        int captureStart = captureSegment < 0 ? -1 : segmentStart(path, captureSegment);
+        for (int i = 1; i < rewritePieces.length; i++) {
+            if (captureStart >= 0) {
+                appendSegments(builder, path, captureStart, false, false);
+            }
+            builder.append(rewritePieces[i]);
+        }
+    }
+
+    /**
+     * Appends the non-empty segments from {@code start}, joined by single slashes, the same way
+     * {@link StringUtils#tokenizeToStringArray} would split them.
+     */
+    private static void appendSegments(StringBuilder builder, String path, int start, boolean leadingSlash,
+                                       boolean trim) {
+        int length = path.length();
+        int pos = start;
+        boolean first = true;
+        while (pos < length) {
+            while (pos < length && path.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos >= length) {
+                break;
+            }
+            int end = path.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            int from = pos;
+            int to = end;
+            while (trim && from < to && Character.isWhitespace(path.charAt(from))) {
+                from++;
+            }
+            while (trim && to > from && Character.isWhitespace(path.charAt(to - 1))) {
+                to--;
+            }
+            if (from < to) {
+                if (leadingSlash || !first) {
+                    builder.append('/');
+                }
+                builder.append(path, from, to);
+                first = false;
+            }
+            pos = end;
+        }
+    }
+
+    /**
+     * Returns the index where the {@code skip}-th non-empty segment begins, or {@code -1} if there are
+     * not enough segments.
+     */
+    private static int segmentStart(String path, int skip) {
+        int length = path.length();
+        int pos = 0;
+        int seen = 0;
+        while (pos < length) {
+            while (pos < length && path.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos >= length) {
+                return -1;
+            }
+            if (seen == skip) {
+                return pos;
+            }
+            int end = path.indexOf('/', pos);
+            pos = end < 0 ? length : end;
+            seen++;
+        }
+        return -1;
+    }
+
+    private static int effectivePort(String scheme, int port) {
+        if (port >= 0) {
+            return port;
+        }
+        return "https".equalsIgnoreCase(scheme) ? 443 : 80;
+    }
+
+    private static String[] splitTemplate(String template) {
+        List<String> pieces = new ArrayList<>();
+        int from = 0;
+        int index;
+        while ((index = template.indexOf(CAPTURE, from)) >= 0) {
+            pieces.add(template.substring(from, index));
+            from = index + CAPTURE.length();
+        }
+        pieces.add(template.substring(from));
+        return pieces.toArray(new String[0]);
+    }
+
+    private static int firstWildcardSegment(String pattern) {
+        if (pattern == null) {
+            return -1;
+        }
+        String[] parts = StringUtils.tokenizeToStringArray(pattern, "/", false, true);
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].indexOf('*') >= 0 || parts[i].indexOf('?') >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,32 +1,97 @@
 package com.example.gateway.service;
 
+import com.example.gateway.config.GatewayProperties;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
 import reactor.netty.DisposableServer;
+import reactor.netty.NettyOutbound;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Canned upstreams on {@code gateway.mock.ports}. With {@code gateway.mock.h2c} they also accept cleartext
+ * HTTP/2, and every response reports the version it was served over in {@code X-Mock-Protocol}.
+ * {@code gateway.mock.error-percent} makes an instance fail a share of its requests with {@code 503}.
+ */
 @Component
 public class MockBackendServer {
-    private DisposableServer server;
+    private final GatewayProperties.Mock properties;
+    private final List<DisposableServer> servers = new ArrayList<>();
+
+    public MockBackendServer(GatewayProperties properties) {
+        this.properties = properties.getMock();
+    }
 
     @PostConstruct
     public void start() {
-        server = HttpServer.create()
-                .port(9001)
+        for (int port : properties.getPorts()) {
+            servers.add(start(port, Duration.ofMillis(properties.getLatencyMs().getOrDefault(port, 0L))));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        servers.forEach(DisposableServer::disposeNow);
+        servers.clear();
+    }
+
+    private DisposableServer start(int port, Duration latency) {
+        String instance = String.valueOf(port);
+        int errorPercent = properties.getErrorPercent().getOrDefault(port, 0);
+        return HttpServer.create()
+                .port(port)
+                .protocol(properties.isH2c()
+                        ? new HttpProtocol[]{HttpProtocol.HTTP11, HttpProtocol.H2C}
+                        : new HttpProtocol[]{HttpProtocol.HTTP11})
                 .route(routes -> routes
-                        .get("/mock/account/{id}", (req, res) ->
-                                res.header("Content-Type", "application/json")
-                                        .sendString(reactor.core.publisher.Mono.just(
-                                                "{\"id\":\"" + req.param("id") + "\",\"balance\":1000,\"ts\":\"" + Instant.now() + "\"}")))
-                        .post("/mock/transfer", (req, res) ->
-                                res.header("Content-Type", "application/json")
-                                        .sendString(reactor.core.publisher.Mono.just(
-                                                "{\"status\":\"accepted\",\"ts\":\"" + Instant.now() + "\"}")))
-                        .get("/mock/health", (req, res) ->
-                                res.header("Content-Type", "application/json")
-                                        .sendString(reactor.core.publisher.Mono.just("{\"ok\":true}"))))
+                        .get("/mock/account/{id}", (req, res) -> send(req, res, instance, errorPercent,
+                                delayed(latency, Mono.fromSupplier(() ->
+                                        "{\"id\":\"" + req.param("id") + "\",\"balance\":1000,\"ts\":\"" + Instant.now() + "\"}"))))
+                        .post("/mock/transfer", (req, res) -> send(req, res, instance, errorPercent,
+                                delayed(latency, req.receive().aggregate().asByteArray().map(body -> body.length)
+                                        .defaultIfEmpty(0)
+                                        .map(bytes -> "{\"status\":\"accepted\",\"bytes\":" + bytes
+                                                + ",\"ts\":\"" + Instant.now() + "\"}"))))
+                        .get("/mock/health", (req, res) -> send(req, res, instance, errorPercent,
+                                delayed(latency, Mono.just("{\"ok\":true}")))))
                 .bindNow();
     }
+
+    /**
+     * Answers {@code 503} instead of {@code body} for {@code errorPercent} percent of requests.
+     */
+    private static NettyOutbound send(HttpServerRequest req, HttpServerResponse res, String instance,
+                                      int errorPercent, Mono<String> body) {
+        res.header("Content-Type", "application/json")
+                .header("X-Mock-Instance", instance)
+                .header("X-Mock-Protocol", protocol(req));
+        if (errorPercent > 0 && ThreadLocalRandom.current().nextInt(100) < errorPercent) {
+            return res.status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                    .sendString(Mono.just("{\"error\":\"injected\"}"));
+        }
+        return res.sendString(body);
+    }
+
+    private static String protocol(HttpServerRequest request) {
+        return request instanceof Connection connection && connection.channel() instanceof Http2StreamChannel
+                ? "HTTP/2.0"
+                : request.version().text();
+    }
+
+    private static Mono<String> delayed(Duration latency, Mono<String> body) {
+        return latency.isZero() ? body : body.delaySubscription(latency);
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.gateway.service;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.cache.CachePolicy;
+import com.example.gateway.service.cache.CoalescePolicy;
+import com.example.gateway.service.filter.FilterChain;
+import com.example.gateway.service.filter.GatewayFilterFactory;
+import com.example.gateway.service.upstream.CircuitBreakerPolicy;
+import com.example.gateway.service.upstream.RetryPolicy;
+import com.example.gateway.service.upstream.UpstreamBalancer;
+import com.example.gateway.service.upstream.UpstreamLimits;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds the {@link CompiledRoute} of a rule, combining the rule's own settings with gateway-wide ones and
+ * the {@link GatewayFilterFactory} beans.
+ */
+@Component
+public class RouteCompiler {
+    static final RouteCompiler DEFAULT = new RouteCompiler(new GatewayProperties(), List.of());
+
+    private final CircuitBreakerPolicy breakerPolicy;
+    private final List<GatewayFilterFactory> filterFactories;
+
+    public RouteCompiler(GatewayProperties properties, List<GatewayFilterFactory> filterFactories) {
+        this.breakerPolicy = CircuitBreakerPolicy.from(properties.getCircuitBreaker());
+        this.filterFactories = filterFactories.stream()
+                .sorted(Comparator.comparingInt(GatewayFilterFactory::order))
+                .toList();
+    }
+
+    public CompiledRoute compile(int ordinal, RouteRule rule) {
+        if (!TrafficSplit.declared(rule)) {
+            return compile(ordinal, rule, rule);
+        }
+        CompiledRoute stable = compile(ordinal, rule, TrafficSplit.stable(rule));
+        return stable.withSplit(TrafficSplit.compile(rule, stable, variant -> compile(ordinal, variant, variant)));
+    }
+
+    /**
+     * Compiles {@code effective} while keeping {@code rule}, the rule as published, for change detection.
+     */
+    private CompiledRoute compile(int ordinal, RouteRule rule, RouteRule effective) {
+        return new CompiledRoute(ordinal, rule, UpstreamBalancer.compile(effective, breakerPolicy),
+                FilterChain.compile(effective, filterFactories), UpstreamLimits.from(effective),
+                CachePolicy.from(effective), CoalescePolicy.from(effective), RetryPolicy.from(effective), null);
+    }
+}
@@ -0,0 +1,480 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable segment trie compiled from the ordered rules of one {@link com.example.gateway.model.RuleSnapshot}.
+ * Literal segments are indexed directly, single-segment wildcards and {@code **} get their own branches,
+ * and every node carries the lowest rule ordinal and the union of method bits found below it so lookups
+ * can prune whole subtrees. A lookup walks the path in place and returns the lowest matching ordinal,
+ * which keeps the first-match-wins order of the rule list.
+ */
+public final class RouteIndex {
+    static final long METHOD_GET = 1L;
+    static final long METHOD_HEAD = 1L << 1;
+    static final long METHOD_POST = 1L << 2;
+    static final long METHOD_PUT = 1L << 3;
+    static final long METHOD_PATCH = 1L << 4;
+    static final long METHOD_DELETE = 1L << 5;
+    static final long METHOD_OPTIONS = 1L << 6;
+    static final long METHOD_TRACE = 1L << 7;
+    static final long METHOD_OTHER = 1L << 8;
+    static final long METHOD_ANY = -1L;
+
+    private static final RouteIndex EMPTY = new RouteIndex(new RouteRule[0], Node.EMPTY);
+
+    private final RouteRule[] rules;
+    private final Node root;
+
+    private RouteIndex(RouteRule[] rules, Node root) {
+        this.rules = rules;
+        this.root = root;
+    }
+
+    public static RouteIndex empty() {
+        return EMPTY;
+    }
+
+    public static RouteIndex compile(List<RouteRule> routes) {
+        if (routes == null || routes.isEmpty()) {
+            return EMPTY;
+        }
+        RouteRule[] rules = routes.toArray(new RouteRule[0]);
+        Builder root = new Builder();
+        for (int i = 0; i < rules.length; i++) {
+            RouteRule rule = rules[i];
+            if (rule == null || rule.getPath() == null) {
+                continue;
+            }
+            root.insert(rule.getPath(), i, methodMask(rule.getMethods()));
+        }
+        return new RouteIndex(rules, root.build());
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public RouteRule get(int ordinal) {
+        return rules[ordinal];
+    }
+
+    public RouteRule match(String path, String method) {
+        int ordinal = find(path, method);
+        return ordinal < 0 ? null : rules[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the first rule matching the path and method, or {@code -1}.
+     */
+    public int find(String path, String method) {
+        if (path == null) {
+            return -1;
+        }
+        long bit = methodBit(method);
+        boolean trailingSlash = path.length() > 1 && path.charAt(path.length() - 1) == '/';
+        int best = walk(root, path, 0, bit, method, trailingSlash, Integer.MAX_VALUE);
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    private int walk(Node node, String path, int pos, long bit, String method, boolean trailingSlash, int best) {
+        if (node.minOrder >= best || (node.methods & bit) == 0) {
+            return best;
+        }
+        int start = skipSlashes(path, pos);
+        int length = path.length();
+        if (start == length) {
+            best = acceptTerminals(node, bit, method, trailingSlash, false, best);
+            if (trailingSlash) {
+                // AntPathMatcher lets a single trailing "*" match the empty segment after a final slash
+                for (int i = 0; i < node.patterns.length; i++) {
+                    if (node.patterns[i].isWildcard()) {
+                        best = acceptTerminals(node.patternChildren[i], bit, method, trailingSlash, true, best);
+                    }
+                }
+            }
+            if (node.multi != null) {
+                best = walk(node.multi, path, start, bit, method, trailingSlash, best);
+            }
+            return best;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+        Node literal = node.literal(path, start, end);
+        if (literal != null) {
+            best = walk(literal, path, end, bit, method, trailingSlash, best);
+        }
+        for (int i = 0; i < node.patterns.length; i++) {
+            if (node.patterns[i].matches(path, start, end)) {
+                best = walk(node.patternChildren[i], path, end, bit, method, trailingSlash, best);
+            }
+        }
+        if (node.multi != null) {
+            Node multi = node.multi;
+            int cursor = start;
+            while (multi.minOrder < best) {
+                best = walk(multi, path, cursor, bit, method, trailingSlash, best);
+                if (cursor >= length) {
+                    break;
+                }
+                int next = path.indexOf('/', skipSlashes(path, cursor));
+                cursor = next < 0 ? length : next;
+            }
+        }
+        return best;
+    }
+
+    private int acceptTerminals(Node node, long bit, String method, boolean trailingSlash, boolean anySlash,
+                                int best) {
+        for (int i = 0; i < node.terminalOrders.length; i++) {
+            int order = node.terminalOrders[i];
+            if (order >= best) {
+                break;
+            }
+            if ((node.terminalMethods[i] & bit) == 0) {
+                continue;
+            }
+            if (!anySlash && !node.multiTerminal && node.terminalSlash[i] != trailingSlash) {
+                continue;
+            }
+            if (bit == METHOD_OTHER && node.terminalMethods[i] != METHOD_ANY
+                    && !containsIgnoreCase(rules[order].getMethods(), method)) {
+                continue;
+            }
+            return order;
+        }
+        return best;
+    }
+
+    private static int skipSlashes(String path, int pos) {
+        int length = path.length();
+        while (pos < length && path.charAt(pos) == '/') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String value) {
+        if (values == null || value == null) {
+            return false;
+        }
+        for (String item : values) {
+            if (item != null && item.trim().equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long methodMask(List<String> methods) {
+        if (methods == null || methods.isEmpty()) {
+            return METHOD_ANY;
+        }
+        long mask = 0L;
+        for (String method : methods) {
+            if (method != null) {
+                mask |= methodBit(method.trim());
+            }
+        }
+        return mask == 0L ? METHOD_ANY : mask;
+    }
+
+    static long methodBit(String method) {
+        if (method == null) {
+            return METHOD_GET;
+        }
+        switch (method) {
+            case "GET":
+                return METHOD_GET;
+            case "HEAD":
+                return METHOD_HEAD;
+            case "POST":
+                return METHOD_POST;
+            case "PUT":
+                return METHOD_PUT;
+            case "PATCH":
+                return METHOD_PATCH;
+            case "DELETE":
+                return METHOD_DELETE;
+            case "OPTIONS":
+                return METHOD_OPTIONS;
+            case "TRACE":
+                return METHOD_TRACE;
+            default:
+                String upper = method.toUpperCase(Locale.ROOT);
+                return upper.equals(method) ? METHOD_OTHER : methodBit(upper);
+        }
+    }
+
+    private static final class Node {
+        private static final Node EMPTY = new Node(new String[0], new Node[0], new SegmentPattern[0], new Node[0],
+                null, new int[0], new long[0], new boolean[0], false, Integer.MAX_VALUE, 0L);
+
+        private final String[] literalKeys;
+        private final Node[] literalChildren;
+        private final SegmentPattern[] patterns;
+        private final Node[] patternChildren;
+        private final Node multi;
+        private final int[] terminalOrders;
+        private final long[] terminalMethods;
+        private final boolean[] terminalSlash;
+        private final boolean multiTerminal;
+        private final int minOrder;
+        private final long methods;
+
+        private Node(String[] literalKeys, Node[] literalChildren, SegmentPattern[] patterns, Node[] patternChildren,
+                     Node multi, int[] terminalOrders, long[] terminalMethods, boolean[] terminalSlash,
+                     boolean multiTerminal, int minOrder, long methods) {
+            this.literalKeys = literalKeys;
+            this.literalChildren = literalChildren;
+            this.patterns = patterns;
+            this.patternChildren = patternChildren;
+            this.multi = multi;
+            this.terminalOrders = terminalOrders;
+            this.terminalMethods = terminalMethods;
+            this.terminalSlash = terminalSlash;
+            this.multiTerminal = multiTerminal;
+            this.minOrder = minOrder;
+            this.methods = methods;
+        }
+
+        private Node literal(String path, int start, int end) {
+            int low = 0;
+            int high = literalKeys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareRegion(literalKeys[mid], path, start, end);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return literalChildren[mid];
+                }
+            }
+            return null;
+        }
+
+        private static int compareRegion(String key, String path, int start, int end) {
+            int regionLength = end - start;
+            int limit = Math.min(key.length(), regionLength);
+            for (int i = 0; i < limit; i++) {
+                int diff = key.charAt(i) - path.charAt(start + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return key.length() - regionLength;
+        }
+    }
+
+    private static final class Builder {
+        private final TreeMap<String, Builder> literals = new TreeMap<>();
+        private final List<SegmentPattern> patterns = new ArrayList<>();
+        private final List<Builder> patternChildren = new ArrayList<>();
+        private Builder multi;
+        private final List<long[]> terminals = new ArrayList<>();
+        private boolean multiTerminal;
+
+        private void insert(String pattern, int order, long methods) {
+            String[] segments = pattern.split("/");
+            boolean trailingSlash = pattern.length() > 1 && pattern.endsWith("/");
+            Builder node = this;
+            for (String raw : segments) {
+                String segment = raw.trim();
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                node = node.child(segment);
+            }
+            node.terminals.add(new long[]{order, methods, trailingSlash ? 1 : 0});
+        }
+
+        private Builder child(String segment) {
+            if ("**".equals(segment)) {
+                if (multi == null) {
+                    multi = new Builder();
+                    multi.multiTerminal = true;
+                }
+                return multi;
+            }
+            if (!SegmentPattern.isPattern(segment)) {
+                return literals.computeIfAbsent(segment, key -> new Builder());
+            }
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).source.equals(segment)) {
+                    return patternChildren.get(i);
+                }
+            }
+            Builder child = new Builder();
+            patterns.add(SegmentPattern.compile(segment));
+            patternChildren.add(child);
+            return child;
+        }
+
+        private Node build() {
+            int minOrder = Integer.MAX_VALUE;
+            long methods = 0L;
+
+            String[] keys = literals.keySet().toArray(new String[0]);
+            Node[] literalNodes = new Node[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                literalNodes[i] = literals.get(keys[i]).build();
+                minOrder = Math.min(minOrder, literalNodes[i].minOrder);
+                methods |= literalNodes[i].methods;
+            }
+
+            Integer[] patternOrder = new Integer[patterns.size()];
+            Node[] builtPatterns = new Node[patterns.size()];
+            for (int i = 0; i < patternOrder.length; i++) {
+                patternOrder[i] = i;
+                builtPatterns[i] = patternChildren.get(i).build();
+                minOrder = Math.min(minOrder, builtPatterns[i].minOrder);
+                methods |= builtPatterns[i].methods;
+            }
+            Arrays.sort(patternOrder, Comparator.comparingInt(i -> builtPatterns[i].minOrder));
+            SegmentPattern[] sortedPatterns = new SegmentPattern[patternOrder.length];
+            Node[] sortedChildren = new Node[patternOrder.length];
+            for (int i = 0; i < patternOrder.length; i++) {
+                sortedPatterns[i] = patterns.get(patternOrder[i]);
+                sortedChildren[i] = builtPatterns[patternOrder[i]];
+            }
+
+            Node multiNode = multi == null ? null : multi.build();
+            if (multiNode != null) {
+                minOrder = Math.min(minOrder, multiNode.minOrder);
+                methods |= multiNode.methods;
+            }
+
+            terminals.sort(Comparator.comparingLong(entry -> entry[0]));
+            int[] orders = new int[terminals.size()];
+            long[] terminalMethods = new long[terminals.size()];
+            boolean[] slashes = new boolean[terminals.size()];
+            for (int i = 0; i < orders.length; i++) {
+                long[] entry = terminals.get(i);
+                orders[i] = (int) entry[0];
+                terminalMethods[i] = entry[1];
+                slashes[i] = entry[2] == 1;
+                minOrder = Math.min(minOrder, orders[i]);
+                methods |= terminalMethods[i];
+            }
+            return new Node(keys, literalNodes, sortedPatterns, sortedChildren, multiNode,
+                    orders, terminalMethods, slashes, multiTerminal, minOrder, methods);
+        }
+    }
+
+    /**
+     * Single-segment pattern: {@code *} and {@code ?} globs plus {@code {name}} variables. Variables with a
+     * regex constraint ({@code {id:\d+}}) fall back to a precompiled {@link Pattern}.
+     */
+    static final class SegmentPattern {
+        private final String source;
+        private final String glob;
+        private final Pattern regex;
+
+        private SegmentPattern(String source, String glob, Pattern regex) {
+            this.source = source;
+            this.glob = glob;
+            this.regex = regex;
+        }
+
+        static boolean isPattern(String segment) {
+            return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+        }
+
+        static SegmentPattern compile(String segment) {
+            if (segment.indexOf('{') < 0) {
+                return new SegmentPattern(segment, segment, null);
+            }
+            StringBuilder glob = new StringBuilder();
+            StringBuilder regex = new StringBuilder();
+            boolean constrained = false;
+            int i = 0;
+            while (i < segment.length()) {
+                char c = segment.charAt(i);
+                if (c == '{') {
+                    int close = segment.indexOf('}', i);
+                    if (close < 0) {
+                        glob.append(segment, i, segment.length());
+                        regex.append(Pattern.quote(segment.substring(i)));
+                        break;
+                    }
+                    String variable = segment.substring(i + 1, close);
+                    int colon = variable.indexOf(':');
+                    if (colon >= 0) {
+                        constrained = true;
+                        regex.append('(').append(variable.substring(colon + 1)).append(')');
+                    } else {
+                        regex.append("(.*)");
+                    }
+                    glob.append('*');
+                    i = close + 1;
+                } else if (c == '*') {
+                    glob.append('*');
+                    regex.append(".*");
+                    i++;
+                } else if (c == '?') {
+                    glob.append('?');
+                    regex.append('.');
+                    i++;
+                } else {
+                    glob.append(c);
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    i++;
+                }
+            }
+            return new SegmentPattern(segment, glob.toString(),
+                    constrained ? Pattern.compile(regex.toString()) : null);
+        }
+
+        boolean isWildcard() {
+            return "*".equals(source);
+        }
+
+        boolean matches(String path, int start, int end) {
+            if (regex != null) {
+                return regex.matcher(path.subSequence(start, end)).matches();
+            }
+            if (glob.length() == 1 && glob.charAt(0) == '*') {
+                return true;
+            }
+            return globMatches(path, start, end);
+        }
+
+        private boolean globMatches(String path, int start, int end) {
+            int p = 0;
+            int s = start;
+            int starP = -1;
+            int starS = -1;
+            int globLength = glob.length();
+            while (s < end) {
+                if (p < globLength && (glob.charAt(p) == '?' || glob.charAt(p) == path.charAt(s))) {
+                    p++;
+                    s++;
+                } else if (p < globLength && glob.charAt(p) == '*') {
+                    starP = p++;
+                    starS = s;
+                } else if (starP >= 0) {
+                    p = starP + 1;
+                    s = ++starS;
+                } else {
+                    return false;
+                }
+            }
+            while (p < globLength && glob.charAt(p) == '*') {
+                p++;
+            }
+            return p == globLength;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.gateway.service;
 
+import com.example.gateway.model.RouteRule;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 
+import java.util.List;
+
 @Component
 public class RouteMatcher {
     private final AntPathMatcher matcher = new AntPathMatcher();
@@ -14,4 +17,8 @@ public class RouteMatcher {
     public String extractPath(String pattern, String path) {
         return matcher.extractPathWithinPattern(pattern, path);
     }
+
+    public RouteIndex compile(List<RouteRule> routes) {
+        return RouteIndex.compile(routes);
+    }
 }
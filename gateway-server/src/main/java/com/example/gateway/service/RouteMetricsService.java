@@ -1,38 +1,92 @@
 package com.example.gateway.service;
 
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.metrics.RouteMetrics;
+import com.example.gateway.service.metrics.RouteMetricsWindow;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-public class RouteMetricsService {
-    private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<>();
+public class RouteMetricsService implements RouteTableListener {
+    private static final int[] WINDOW_SECONDS = {10, 60};
+
+    private final ConcurrentHashMap<String, RouteMetrics> metrics = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPublish(RouteTable table) {
+        Set<String> live = new HashSet<>();
+        for (int i = 0; i < table.size(); i++) {
+            RouteRule rule = table.route(i).rule();
+            if (rule.getId() != null) {
+                live.add(rule.getId());
+                RouteMetrics route = metrics.computeIfAbsent(rule.getId(), id -> new RouteMetrics());
+                TrafficSplit split = table.route(i).split();
+                for (int variant = 0; split != null && variant < split.size(); variant++) {
+                    String key = split.metricsKey(variant);
+                    live.add(key);
+                    RouteMetrics current = metrics.get(key);
+                    if (current == null || current.parent() != route) {
+                        metrics.put(key, new RouteMetrics(route));
+                    }
+                }
+            }
+        }
+        metrics.keySet().retainAll(live);
+    }
+
+    public RouteMetrics metrics(String routeId) {
+        RouteMetrics metric = metrics.get(routeId);
+        return metric != null ? metric : metrics.computeIfAbsent(routeId, id -> new RouteMetrics());
+    }
+
+    /**
+     * Metrics of one traffic-split variant, recording into the route's metrics as well. The parent is resolved
+     * before the variant's entry is created, since a mapping function may not update other keys of the map.
+     */
+    public RouteMetrics variantMetrics(String routeId, String key) {
+        RouteMetrics metric = metrics.get(key);
+        if (metric != null) {
+            return metric;
+        }
+        RouteMetrics parent = metrics(routeId);
+        return metrics.computeIfAbsent(key, id -> new RouteMetrics(parent));
+    }
 
     public void recordHit(String routeId) {
-        Metric metric = metrics.computeIfAbsent(routeId, id -> new Metric());
-        metric.count.incrementAndGet();
-        metric.lastHit.set(System.currentTimeMillis());
+        metrics(routeId).recordHit();
     }
 
     public List<RouteMetricView> snapshot() {
+        long now = System.currentTimeMillis();
         List<RouteMetricView> views = new ArrayList<>();
-        metrics.forEach((id, metric) -> views.add(new RouteMetricView(
-                id,
-                metric.count.get(),
-                metric.lastHit.get() == 0 ? null : Instant.ofEpochMilli(metric.lastHit.get()).toString()
-        )));
+        metrics.forEach((key, metric) -> {
+            int separator = metric.parent() == null ? -1 : key.lastIndexOf(TrafficSplit.METRICS_SEPARATOR);
+            String id = separator < 0 ? key : key.substring(0, separator);
+            String variant = separator < 0 ? null : key.substring(separator + 1);
+            List<RouteMetricsWindow.WindowView> windows = new ArrayList<>(WINDOW_SECONDS.length);
+            for (int seconds : WINDOW_SECONDS) {
+                windows.add(RouteMetricsWindow.window(metric, now, seconds));
+            }
+            views.add(new RouteMetricView(
+                    id,
+                    variant,
+                    metric.hits(),
+                    metric.lastHit() == 0 ? null : Instant.ofEpochMilli(metric.lastHit()).toString(),
+                    windows,
+                    RouteMetricsWindow.latency(metric, now)
+            ));
+        });
         return views;
     }
 
-    private static final class Metric {
-        private final AtomicLong count = new AtomicLong();
-        private final AtomicLong lastHit = new AtomicLong();
-    }
-
-    public record RouteMetricView(String routeId, long hits, String lastHit) {
+    public record RouteMetricView(String routeId, String variant, long hits, String lastHit,
+                                  List<RouteMetricsWindow.WindowView> windows,
+                                  RouteMetricsWindow.LatencyView latency) {
     }
 }
@@ -0,0 +1,119 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.RuleSnapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A published {@link RuleSnapshot} together with the routing structures compiled from it.
+ */
+public final class RouteTable {
+    private final long revision;
+    private final RuleSnapshot snapshot;
+    private final RouteIndex index;
+    private final CompiledRoute[] routes;
+    private final RuleDiff diff;
+
+    private RouteTable(long revision, RuleSnapshot snapshot, RouteIndex index, CompiledRoute[] routes,
+                       RuleDiff diff) {
+        this.revision = revision;
+        this.snapshot = snapshot;
+        this.index = index;
+        this.routes = routes;
+        this.diff = diff;
+    }
+
+    public static RouteTable compile(RuleSnapshot snapshot, RouteIndex index) {
+        return compile(snapshot, index, null);
+    }
+
+    /**
+     * Compiles the snapshot, reusing the compiled state of every rule that is unchanged since {@code previous}.
+     */
+    public static RouteTable compile(RuleSnapshot snapshot, RouteIndex index, RouteTable previous) {
+        return compile(snapshot, index, previous, RouteCompiler.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #compile(RuleSnapshot, RouteIndex, RouteTable)}, compiling new and changed rules with
+     * {@code compiler}.
+     */
+    public static RouteTable compile(RuleSnapshot snapshot, RouteIndex index, RouteTable previous,
+                                     RouteCompiler compiler) {
+        List<RouteRule> rules = snapshot.getRoutes() == null ? List.of() : snapshot.getRoutes();
+        Map<String, CompiledRoute> reusable = new HashMap<>();
+        if (previous != null) {
+            for (CompiledRoute route : previous.routes) {
+                if (route.rule().getId() != null) {
+                    reusable.put(route.rule().getId(), route);
+                }
+            }
+        }
+        int added = 0;
+        int changed = 0;
+        int unchanged = 0;
+        CompiledRoute[] routes = new CompiledRoute[rules.size()];
+        for (int i = 0; i < routes.length; i++) {
+            RouteRule rule = rules.get(i);
+            CompiledRoute prior = rule.getId() == null ? null : reusable.remove(rule.getId());
+            if (prior == null) {
+                added++;
+                routes[i] = compiler.compile(i, rule);
+            } else if (prior.rule().equals(rule)) {
+                unchanged++;
+                routes[i] = prior.ordinal() == i ? prior : prior.withOrdinal(i);
+            } else {
+                changed++;
+                routes[i] = compiler.compile(i, rule);
+            }
+        }
+        int removed = previous == null ? 0 : reusable.size();
+        return new RouteTable(nextRevision(previous), snapshot, index, routes,
+                new RuleDiff(added, changed, removed, unchanged));
+    }
+
+    /**
+     * Republishes an earlier table under a new revision. The snapshot, index and compiled routes are shared
+     * as-is; only the diff against {@code current} is computed.
+     */
+    public static RouteTable restore(RouteTable target, RouteTable current) {
+        return new RouteTable(nextRevision(current), target.snapshot, target.index, target.routes,
+                RuleChanges.between(current, target).counts());
+    }
+
+    private static long nextRevision(RouteTable previous) {
+        return previous == null ? 1 : previous.revision + 1;
+    }
+
+    public long revision() {
+        return revision;
+    }
+
+    public RuleSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public RuleDiff diff() {
+        return diff;
+    }
+
+    public RouteIndex index() {
+        return index;
+    }
+
+    public CompiledRoute route(int ordinal) {
+        return routes[ordinal];
+    }
+
+    public int size() {
+        return routes.length;
+    }
+
+    public CompiledRoute match(String path, String method) {
+        int ordinal = index.find(path, method);
+        return ordinal < 0 ? null : routes[ordinal];
+    }
+}
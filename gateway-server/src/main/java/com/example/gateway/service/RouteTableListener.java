@@ -0,0 +1,9 @@
+package com.example.gateway.service;
+
+/**
+ * Notified by {@link RuleService} after a new {@link RouteTable} has been published, so components can
+ * prepare per-route state before traffic reaches it.
+ */
+public interface RouteTableListener {
+    void onPublish(RouteTable table);
+}
@@ -0,0 +1,49 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rule ids by change type between two route tables, matched by rule id. Rules shared between the two tables
+ * are recognised by reference before falling back to {@link RouteRule#equals}.
+ */
+public record RuleChanges(long from, long to, List<String> added, List<String> changed, List<String> removed,
+                         int unchanged) {
+
+    public static RuleChanges between(RouteTable from, RouteTable to) {
+        Map<String, RouteRule> before = new HashMap<>();
+        for (int i = 0; i < from.size(); i++) {
+            RouteRule rule = from.route(i).rule();
+            if (rule.getId() != null) {
+                before.put(rule.getId(), rule);
+            }
+        }
+        List<String> added = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        int unchanged = 0;
+        for (int i = 0; i < to.size(); i++) {
+            RouteRule rule = to.route(i).rule();
+            if (rule.getId() == null) {
+                continue;
+            }
+            RouteRule prior = before.remove(rule.getId());
+            if (prior == null) {
+                added.add(rule.getId());
+            } else if (prior == rule || prior.equals(rule)) {
+                unchanged++;
+            } else {
+                changed.add(rule.getId());
+            }
+        }
+        return new RuleChanges(from.revision(), to.revision(), added, changed, new ArrayList<>(before.keySet()),
+                unchanged);
+    }
+
+    public RuleDiff counts() {
+        return new RuleDiff(added.size(), changed.size(), removed.size(), unchanged);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+
+/**
+ * One rule mutation submitted to {@link RuleCommandQueue}. {@code op} is {@code add}, {@code update} (a partial
+ * {@code rule} merged over rule {@code id}), {@code put} (a complete {@code rule} that replaces any rule with the
+ * same id, as used by import) or {@code delete}. A non-null {@code ifVersion} makes the command
+ * conditional: it applies only while the snapshot version is still {@code ifVersion}, like {@code If-Match}.
+ */
+public record RuleCommand(String op, String id, RouteRule rule, String ifVersion) {
+    public static final String ADD = "add";
+    public static final String UPDATE = "update";
+    public static final String PUT = "put";
+    public static final String DELETE = "delete";
+
+    public static RuleCommand add(RouteRule rule, String ifVersion) {
+        return new RuleCommand(ADD, rule.getId(), rule, ifVersion);
+    }
+
+    public static RuleCommand update(String id, RouteRule patch, String ifVersion) {
+        return new RuleCommand(UPDATE, id, patch, ifVersion);
+    }
+
+    public static RuleCommand put(RouteRule rule) {
+        return new RuleCommand(PUT, rule.getId(), rule, null);
+    }
+
+    public static RuleCommand delete(String id, String ifVersion) {
+        return new RuleCommand(DELETE, id, null, ifVersion);
+    }
+
+    public enum Outcome {
+        APPLIED, NOT_FOUND, DUPLICATE, INVALID, PRECONDITION_FAILED
+    }
+
+    /**
+     * What happened to one command. {@code rule} is the rule as stored after an add or update; {@code version}
+     * is the snapshot version published by the command's batch, or the unchanged current version when the
+     * command was not applied.
+     */
+    public record Result(Outcome outcome, String id, RouteRule rule, String version) {
+
+        public boolean applied() {
+            return outcome == Outcome.APPLIED;
+        }
+    }
+
+    /**
+     * Outcome of a bulk update or delete of every rule in {@code group}.
+     */
+    public record GroupResult(String group, int matched, int applied, String version) {
+    }
+}
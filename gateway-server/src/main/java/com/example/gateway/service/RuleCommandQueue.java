@@ -0,0 +1,142 @@
+package com.example.gateway.service;
+
+import com.example.gateway.config.GatewayProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects rule commands for {@code gateway.storage.batch-window-ms} after the first one arrives, then applies
+ * up to {@code batch-max-commands} of them as one batch on the {@link BlockingExecutor} writer: one journal
+ * append and fsync, one compile and one published snapshot however many admin calls were waiting. Each caller
+ * still gets the result of its own command.
+ */
+@Component
+public class RuleCommandQueue {
+    private final RuleService ruleService;
+    private final BlockingExecutor blocking;
+    private final Duration window;
+    private final int maxBatch;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int lastBatchSize;
+
+    public RuleCommandQueue(RuleService ruleService, BlockingExecutor blocking, GatewayProperties properties) {
+        this.ruleService = ruleService;
+        this.blocking = blocking;
+        this.window = Duration.ofMillis(Math.max(0L, properties.getStorage().getBatchWindowMs()));
+        this.maxBatch = Math.max(1, properties.getStorage().getBatchMaxCommands());
+    }
+
+    public Mono<RuleCommand.Result> submit(RuleCommand command) {
+        return Mono.defer(() -> Mono.fromFuture(enqueue(command)));
+    }
+
+    /**
+     * Submits the commands in order; results come back in the same order. Commands may land in different
+     * batches, so a later one can see changes made by other callers in between.
+     */
+    public Mono<List<RuleCommand.Result>> submitAll(List<RuleCommand> commands) {
+        return Flux.defer(() -> {
+            List<CompletableFuture<RuleCommand.Result>> futures = new ArrayList<>(commands.size());
+            for (RuleCommand command : commands) {
+                futures.add(enqueue(command));
+            }
+            return Flux.fromIterable(futures).concatMap(Mono::fromFuture);
+        }).collectList();
+    }
+
+    public QueueStats stats() {
+        long batchCount = batches.sum();
+        long commandCount = commands.sum();
+        return new QueueStats(queued.get(), batchCount, commandCount, rejected.sum(), lastBatchSize,
+                batchCount == 0 ? 0.0 : (double) commandCount / batchCount);
+    }
+
+    private CompletableFuture<RuleCommand.Result> enqueue(RuleCommand command) {
+        Pending pending = new Pending(command, new CompletableFuture<>());
+        queue.add(pending);
+        queued.incrementAndGet();
+        schedule(window);
+        return pending.result();
+    }
+
+    private void schedule(Duration delay) {
+        if (scheduled.compareAndSet(false, true)) {
+            Mono.delay(delay)
+                    .then(blocking.write(() -> {
+                        drain();
+                        return Boolean.TRUE;
+                    }))
+                    .subscribe(done -> {
+                    }, ex -> failQueued(ex));
+        }
+    }
+
+    private void drain() {
+        // cleared before polling: anything queued from here on is either taken now or schedules another drain
+        scheduled.set(false);
+        List<Pending> batch = new ArrayList<>();
+        Pending next;
+        while (batch.size() < maxBatch && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+        queued.addAndGet(-batch.size());
+        if (!batch.isEmpty()) {
+            List<RuleCommand> commandBatch = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                commandBatch.add(pending.command());
+            }
+            try {
+                List<RuleCommand.Result> results = ruleService.apply(commandBatch);
+                batches.increment();
+                commands.add(batch.size());
+                lastBatchSize = batch.size();
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(results.get(i));
+                }
+            } catch (Exception ex) {
+                for (Pending pending : batch) {
+                    pending.result().completeExceptionally(ex);
+                }
+            }
+        }
+        if (!queue.isEmpty()) {
+            schedule(Duration.ZERO);
+        }
+    }
+
+    /**
+     * The writer refused the drain (its queue is full); fail what is waiting rather than leave callers hanging.
+     */
+    private void failQueued(Throwable ex) {
+        scheduled.set(false);
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            rejected.increment();
+            pending.result().completeExceptionally(ex);
+        }
+    }
+
+    private record Pending(RuleCommand command, CompletableFuture<RuleCommand.Result> result) {
+    }
+
+    public record QueueStats(int queued, long batches, long commands, long rejected, int lastBatchSize,
+                             double averageBatchSize) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.gateway.service;
+
+/**
+ * Rule counts by change type between two published route tables, matched by rule id.
+ */
+public record RuleDiff(int added, int changed, int removed, int unchanged) {
+}
@@ -0,0 +1,58 @@
+package com.example.gateway.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded ring of the most recently published route tables, newest last. Consecutive tables share every
+ * unchanged {@link com.example.gateway.model.RouteRule} and {@link CompiledRoute}, so each entry costs roughly
+ * its changed rules plus its route index.
+ */
+public final class RuleHistory {
+    private final Entry[] ring;
+    private int head;
+    private int size;
+
+    RuleHistory(int capacity) {
+        this.ring = new Entry[Math.max(1, capacity)];
+    }
+
+    synchronized void record(RouteTable table, String source) {
+        ring[(head + size) % ring.length] = new Entry(table, source, Instant.now().toString());
+        if (size < ring.length) {
+            size++;
+        } else {
+            head = (head + 1) % ring.length;
+        }
+    }
+
+    synchronized Optional<RouteTable> find(long revision) {
+        for (int i = 0; i < size; i++) {
+            Entry entry = ring[(head + i) % ring.length];
+            if (entry.table().revision() == revision) {
+                return Optional.of(entry.table());
+            }
+        }
+        return Optional.empty();
+    }
+
+    synchronized List<RuleVersion> versions() {
+        List<RuleVersion> versions = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            Entry entry = ring[(head + i) % ring.length];
+            RouteTable table = entry.table();
+            versions.add(new RuleVersion(table.revision(), table.snapshot().getVersion(), entry.publishedAt(),
+                    entry.source(), table.size(), table.diff()));
+        }
+        return versions;
+    }
+
+    private record Entry(RouteTable table, String source, String publishedAt) {
+    }
+
+    public record RuleVersion(long revision, String version, String publishedAt, String source, int routes,
+                              RuleDiff diff) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.gateway.service;
+
+import com.example.gateway.config.GatewayProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reloads the rule file when it changes on disk. A {@link WatchService} on the file's directory schedules a
+ * debounced reload, so a burst of writes from an editor or a copy costs one parse; {@link RuleStorage} then
+ * skips the parse entirely when the content hash is unchanged. A slow periodic check covers file systems that
+ * do not deliver watch events. Reloads run on the {@link BlockingExecutor} writer, in line with admin edits.
+ */
+@Component
+public class RuleReloader {
+    private static final Logger log = LoggerFactory.getLogger(RuleReloader.class);
+
+    private final RuleService ruleService;
+    private final BlockingExecutor blocking;
+    private final Path dataPath;
+    private final GatewayProperties.Reload properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rule-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile WatchService watchService;
+    private volatile ScheduledFuture<?> pending;
+    private volatile long pendingSince;
+    private volatile long lastLatencyMicros;
+    private volatile String lastReloadAt;
+    private volatile String lastError;
+    private volatile String lastFailureAt;
+    private volatile RuleDiff lastDiff;
+
+    public RuleReloader(RuleService ruleService, RuleStorage storage, BlockingExecutor blocking,
+                        GatewayProperties properties) {
+        this.ruleService = ruleService;
+        this.blocking = blocking;
+        this.dataPath = storage.getDataPath().toAbsolutePath();
+        this.properties = properties.getReload();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        dataPath.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(this::watch, "rule-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+        if (properties.getFallbackCheckMs() > 0) {
+            executor.scheduleWithFixedDelay(() -> reload(System.nanoTime()), properties.getFallbackCheckMs(),
+                    properties.getFallbackCheckMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        executor.shutdownNow();
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    public ReloadStats stats() {
+        return new ReloadStats(reloads.get(), skipped.get(), failures.get(), lastLatencyMicros / 1000.0,
+                lastReloadAt, lastDiff, lastError, lastFailureAt);
+    }
+
+    private void watch() {
+        Path fileName = dataPath.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        relevant = true;
+                    }
+                }
+                key.reset();
+                if (relevant) {
+                    schedule();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // shutting down
+        }
+    }
+
+    private synchronized void schedule() {
+        ScheduledFuture<?> current = pending;
+        if (current == null || current.isDone()) {
+            pendingSince = System.nanoTime();
+        } else {
+            current.cancel(false);
+        }
+        long since = pendingSince;
+        pending = executor.schedule(() -> reload(since), properties.getDebounceMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void reload(long triggeredAt) {
+        try {
+            Optional<RuleDiff> diff = blocking.write(ruleService::reloadIfChanged).block();
+            if (diff.isEmpty()) {
+                skipped.incrementAndGet();
+                return;
+            }
+            reloads.incrementAndGet();
+            lastLatencyMicros = (System.nanoTime() - triggeredAt) / 1000L;
+            lastReloadAt = Instant.now().toString();
+            lastDiff = diff.get();
+        } catch (RuntimeException ex) {
+            failures.incrementAndGet();
+            lastError = Exceptions.unwrap(ex).getMessage();
+            lastFailureAt = Instant.now().toString();
+            log.warn("Failed to reload rules from {}, keeping the previous snapshot", dataPath, ex);
+        }
+    }
+
+    public record ReloadStats(long reloads, long skipped, long failures, double lastLatencyMs, String lastReloadAt,
+                              RuleDiff lastDiff, String lastError, String lastFailureAt) {
+    }
+}
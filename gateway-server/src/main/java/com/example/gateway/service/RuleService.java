@@ -1,117 +1,290 @@
 package com.example.gateway.service;
 
+import com.example.gateway.config.GatewayProperties;
 import com.example.gateway.model.RouteRule;
 import com.example.gateway.model.RuleSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class RuleService {
+    private static final Logger log = LoggerFactory.getLogger(RuleService.class);
+
     private final RuleStorage storage;
-    private final AtomicReference<RuleSnapshot> snapshotRef = new AtomicReference<>();
-    private volatile long lastModified = 0L;
+    private final RouteMatcher matcher;
+    private final RouteCompiler compiler;
+    private final List<RouteTableListener> listeners;
+    private final int compactAfterEntries;
+    private final RuleHistory history;
+    private final BlockingExecutor blocking;
+    private final AtomicReference<RouteTable> tableRef = new AtomicReference<>();
 
-    public RuleService(RuleStorage storage) throws IOException {
+    public RuleService(RuleStorage storage, RouteMatcher matcher, RouteCompiler compiler,
+                       List<RouteTableListener> listeners, BlockingExecutor blocking, GatewayProperties properties)
+            throws IOException {
         this.storage = storage;
+        this.matcher = matcher;
+        this.compiler = compiler;
+        this.listeners = listeners;
+        this.blocking = blocking;
+        this.compactAfterEntries = properties.getStorage().getCompactAfterEntries();
+        this.history = new RuleHistory(properties.getStorage().getHistorySize());
         RuleSnapshot snapshot = storage.readSnapshot();
-        snapshotRef.set(snapshot);
-        updateLastModified();
+        publish(snapshot, "startup");
     }
 
     public RuleSnapshot getSnapshot() {
-        return snapshotRef.get();
+        return tableRef.get().snapshot();
     }
 
-    public RouteRule addRoute(RouteRule route) throws IOException {
-        RouteRule created = new RouteRule();
-        String now = Instant.now().toString();
-        created.setId(Optional.ofNullable(route.getId()).orElse(UUID.randomUUID().toString()));
-        created.setPath(route.getPath());
-        created.setMethods(route.getMethods());
-        created.setTarget(route.getTarget());
-        created.setStripPrefix(route.getStripPrefix());
-        created.setRewrite(route.getRewrite());
-        created.setGroup(route.getGroup());
-        created.setAuthType(route.getAuthType());
-        created.setApiKey(route.getApiKey());
-        created.setRateLimitQps(route.getRateLimitQps());
-        created.setEnabled(route.getEnabled() == null ? Boolean.TRUE : route.getEnabled());
-        created.setTimeoutMs(route.getTimeoutMs());
-        created.setCreatedAt(now);
-        created.setUpdatedAt(now);
+    public RouteTable getRouteTable() {
+        return tableRef.get();
+    }
 
-        RuleSnapshot current = snapshotRef.get();
-        List<RouteRule> updated = new java.util.ArrayList<>(current.getRoutes());
-        updated.add(created);
-        RuleSnapshot next = new RuleSnapshot();
-        next.setVersion(Instant.now().toString());
-        next.setRoutes(updated);
-        saveSnapshot(next);
-        return created;
+    /**
+     * Applies a batch of commands in order against the current snapshot, then journals and publishes the result
+     * once: one fsynced append and one compiled table for the whole batch. Commands that cannot apply (unknown
+     * id, duplicate id, missing fields, stale {@code ifVersion}) are reported and skipped without failing the
+     * rest. A conditional command passes only while no earlier command of the batch has changed the snapshot,
+     * which is what the same commands would see if applied one at a time.
+     */
+    public List<RuleCommand.Result> apply(List<RuleCommand> commands) throws IOException {
+        return apply(commands, true);
     }
 
-    public Optional<RouteRule> updateRoute(String id, RouteRule patch) throws IOException {
-        RuleSnapshot current = snapshotRef.get();
-        List<RouteRule> updated = new java.util.ArrayList<>();
-        RouteRule updatedRule = null;
+    /**
+     * {@link #apply(List)}, optionally leaving the journal uncompacted so that a long run of batches (an import)
+     * can compact once at the end instead of rewriting the whole snapshot every few batches.
+     */
+    synchronized List<RuleCommand.Result> apply(List<RuleCommand> commands, boolean compact) throws IOException {
+        RuleSnapshot current = getSnapshot();
+        String version = nextVersion(current.getVersion());
+        Map<String, RouteRule> routes = new LinkedHashMap<>();
         for (RouteRule route : current.getRoutes()) {
-            if (route.getId().equals(id)) {
-                String now = Instant.now().toString();
-                RouteRule merged = new RouteRule();
-                merged.setId(id);
-                merged.setPath(Optional.ofNullable(patch.getPath()).orElse(route.getPath()));
-                merged.setMethods(Optional.ofNullable(patch.getMethods()).orElse(route.getMethods()));
-                merged.setTarget(Optional.ofNullable(patch.getTarget()).orElse(route.getTarget()));
-                merged.setStripPrefix(Optional.ofNullable(patch.getStripPrefix()).orElse(route.getStripPrefix()));
-                merged.setRewrite(Optional.ofNullable(patch.getRewrite()).orElse(route.getRewrite()));
-                merged.setGroup(Optional.ofNullable(patch.getGroup()).orElse(route.getGroup()));
-                merged.setAuthType(Optional.ofNullable(patch.getAuthType()).orElse(route.getAuthType()));
-                merged.setApiKey(Optional.ofNullable(patch.getApiKey()).orElse(route.getApiKey()));
-                merged.setRateLimitQps(Optional.ofNullable(patch.getRateLimitQps()).orElse(route.getRateLimitQps()));
-                merged.setEnabled(Optional.ofNullable(patch.getEnabled()).orElse(route.getEnabled()));
-                merged.setTimeoutMs(Optional.ofNullable(patch.getTimeoutMs()).orElse(route.getTimeoutMs()));
-                merged.setCreatedAt(route.getCreatedAt());
-                merged.setUpdatedAt(now);
-                updatedRule = merged;
-                updated.add(merged);
+            routes.put(route.getId(), route);
+        }
+        List<RuleStorage.JournalEntry> entries = new ArrayList<>();
+        List<RuleCommand.Result> results = new ArrayList<>(commands.size());
+        String now = Instant.now().toString();
+        String source = null;
+        for (RuleCommand command : commands) {
+            RuleCommand.Outcome outcome = null;
+            String id = command.id();
+            RouteRule stored = null;
+            if (command.ifVersion() != null && (!entries.isEmpty()
+                    || !command.ifVersion().equals(current.getVersion()))) {
+                outcome = RuleCommand.Outcome.PRECONDITION_FAILED;
+            } else if (RuleCommand.ADD.equals(command.op())) {
+                RouteRule route = command.rule();
+                if (route == null || route.getPath() == null || (route.getTarget() == null
+                        && (route.getTargets() == null || route.getTargets().isEmpty()))) {
+                    outcome = RuleCommand.Outcome.INVALID;
+                } else if (route.getId() != null && routes.containsKey(route.getId())) {
+                    id = route.getId();
+                    outcome = RuleCommand.Outcome.DUPLICATE;
+                } else {
+                    stored = created(route, now);
+                    id = stored.getId();
+                    routes.put(id, stored);
+                    entries.add(RuleStorage.JournalEntry.put(version, stored));
+                }
+            } else if (RuleCommand.PUT.equals(command.op())) {
+                RouteRule route = command.rule();
+                if (route == null || route.getPath() == null || (route.getTarget() == null
+                        && (route.getTargets() == null || route.getTargets().isEmpty()))) {
+                    outcome = RuleCommand.Outcome.INVALID;
+                } else {
+                    RouteRule existing = route.getId() == null ? null : routes.get(route.getId());
+                    stored = created(route, now);
+                    if (route.getCreatedAt() != null) {
+                        stored.setCreatedAt(route.getCreatedAt());
+                    } else if (existing != null) {
+                        stored.setCreatedAt(existing.getCreatedAt());
+                    }
+                    id = stored.getId();
+                    routes.put(id, stored);
+                    entries.add(RuleStorage.JournalEntry.put(version, stored));
+                }
+            } else if (RuleCommand.UPDATE.equals(command.op())) {
+                RouteRule route = id == null ? null : routes.get(id);
+                if (command.rule() == null) {
+                    outcome = RuleCommand.Outcome.INVALID;
+                } else if (route == null) {
+                    outcome = RuleCommand.Outcome.NOT_FOUND;
+                } else {
+                    stored = merged(route, command.rule(), now);
+                    routes.put(id, stored);
+                    entries.add(RuleStorage.JournalEntry.put(version, stored));
+                }
+            } else if (RuleCommand.DELETE.equals(command.op())) {
+                if (id == null || routes.remove(id) == null) {
+                    outcome = RuleCommand.Outcome.NOT_FOUND;
+                } else {
+                    entries.add(RuleStorage.JournalEntry.delete(version, id));
+                }
             } else {
-                updated.add(route);
+                outcome = RuleCommand.Outcome.INVALID;
+            }
+            if (outcome == null) {
+                source = command.op() + " " + id;
             }
+            results.add(new RuleCommand.Result(outcome == null ? RuleCommand.Outcome.APPLIED : outcome, id, stored,
+                    null));
         }
-        if (updatedRule == null) {
-            return Optional.empty();
+        if (entries.isEmpty()) {
+            return withVersion(results, current.getVersion());
         }
         RuleSnapshot next = new RuleSnapshot();
-        next.setVersion(Instant.now().toString());
-        next.setRoutes(updated);
-        saveSnapshot(next);
-        return Optional.of(updatedRule);
+        next.setVersion(version);
+        next.setRoutes(new ArrayList<>(routes.values()));
+        storage.append(entries);
+        publish(next, entries.size() == 1 ? source : "batch of " + entries.size());
+        if (compact && storage.getJournalEntries() >= compactAfterEntries) {
+            compactIfNeeded();
+        }
+        return withVersion(results, version);
+    }
+
+    /**
+     * Merges {@code patch} into every rule of {@code group} as one batch.
+     *
+     * @return empty when {@code ifVersion} is set and no longer current
+     */
+    public synchronized Optional<RuleCommand.GroupResult> updateGroup(String group, RouteRule patch,
+                                                                      String ifVersion) throws IOException {
+        return applyToGroup(group, ifVersion, id -> RuleCommand.update(id, patch, null));
     }
 
-    public boolean deleteRoute(String id) throws IOException {
-        RuleSnapshot current = snapshotRef.get();
-        List<RouteRule> updated = current.getRoutes().stream()
-                .filter(route -> !route.getId().equals(id))
-                .toList();
-        if (updated.size() == current.getRoutes().size()) {
-            return false;
+    /**
+     * Deletes every rule of {@code group} as one batch.
+     *
+     * @return empty when {@code ifVersion} is set and no longer current
+     */
+    public synchronized Optional<RuleCommand.GroupResult> deleteGroup(String group, String ifVersion)
+            throws IOException {
+        return applyToGroup(group, ifVersion, id -> RuleCommand.delete(id, null));
+    }
+
+    private Optional<RuleCommand.GroupResult> applyToGroup(String group, String ifVersion,
+                                                           Function<String, RuleCommand> command)
+            throws IOException {
+        RuleSnapshot current = getSnapshot();
+        if (ifVersion != null && !ifVersion.equals(current.getVersion())) {
+            return Optional.empty();
         }
-        RuleSnapshot next = new RuleSnapshot();
-        next.setVersion(Instant.now().toString());
-        next.setRoutes(updated);
-        saveSnapshot(next);
-        return true;
+        List<RuleCommand> commands = new ArrayList<>();
+        for (RouteRule route : current.getRoutes()) {
+            if (group.equals(route.getGroup())) {
+                commands.add(command.apply(route.getId()));
+            }
+        }
+        List<RuleCommand.Result> results = commands.isEmpty() ? List.of() : apply(commands);
+        int applied = (int) results.stream().filter(RuleCommand.Result::applied).count();
+        return Optional.of(new RuleCommand.GroupResult(group, commands.size(), applied,
+                results.isEmpty() ? current.getVersion() : results.get(0).version()));
     }
 
-    public RuleSnapshot replaceSnapshot(RuleSnapshot snapshot) throws IOException {
+    private static RouteRule created(RouteRule route, String now) {
+        RouteRule created = route.copy();
+        created.setId(Optional.ofNullable(route.getId()).orElse(UUID.randomUUID().toString()));
+        created.setEnabled(route.getEnabled() == null ? Boolean.TRUE : route.getEnabled());
+        created.setCreatedAt(now);
+        created.setUpdatedAt(now);
+        return created;
+    }
+
+    private static RouteRule merged(RouteRule route, RouteRule patch, String now) {
+        RouteRule merged = new RouteRule();
+        merged.setId(route.getId());
+        merged.setPath(Optional.ofNullable(patch.getPath()).orElse(route.getPath()));
+        merged.setMethods(Optional.ofNullable(patch.getMethods()).orElse(route.getMethods()));
+        merged.setTarget(Optional.ofNullable(patch.getTarget()).orElse(route.getTarget()));
+        merged.setTargets(Optional.ofNullable(patch.getTargets()).orElse(route.getTargets()));
+        merged.setLoadBalancer(Optional.ofNullable(patch.getLoadBalancer()).orElse(route.getLoadBalancer()));
+        merged.setUpstreamProtocol(
+                Optional.ofNullable(patch.getUpstreamProtocol()).orElse(route.getUpstreamProtocol()));
+        merged.setVariants(Optional.ofNullable(patch.getVariants()).orElse(route.getVariants()));
+        merged.setSplitKey(Optional.ofNullable(patch.getSplitKey()).orElse(route.getSplitKey()));
+        merged.setStripPrefix(Optional.ofNullable(patch.getStripPrefix()).orElse(route.getStripPrefix()));
+        merged.setRewrite(Optional.ofNullable(patch.getRewrite()).orElse(route.getRewrite()));
+        merged.setGroup(Optional.ofNullable(patch.getGroup()).orElse(route.getGroup()));
+        merged.setAuthType(Optional.ofNullable(patch.getAuthType()).orElse(route.getAuthType()));
+        merged.setApiKey(Optional.ofNullable(patch.getApiKey()).orElse(route.getApiKey()));
+        merged.setJwkSet(Optional.ofNullable(patch.getJwkSet()).orElse(route.getJwkSet()));
+        merged.setJwtIssuer(Optional.ofNullable(patch.getJwtIssuer()).orElse(route.getJwtIssuer()));
+        merged.setJwtAudience(Optional.ofNullable(patch.getJwtAudience()).orElse(route.getJwtAudience()));
+        merged.setClaimHeaders(Optional.ofNullable(patch.getClaimHeaders()).orElse(route.getClaimHeaders()));
+        merged.setRateLimitQps(Optional.ofNullable(patch.getRateLimitQps()).orElse(route.getRateLimitQps()));
+        merged.setRateLimitBurst(Optional.ofNullable(patch.getRateLimitBurst()).orElse(route.getRateLimitBurst()));
+        merged.setRateLimitKey(Optional.ofNullable(patch.getRateLimitKey()).orElse(route.getRateLimitKey()));
+        merged.setEnabled(Optional.ofNullable(patch.getEnabled()).orElse(route.getEnabled()));
+        merged.setTimeoutMs(Optional.ofNullable(patch.getTimeoutMs()).orElse(route.getTimeoutMs()));
+        merged.setTotalTimeoutMs(Optional.ofNullable(patch.getTotalTimeoutMs()).orElse(route.getTotalTimeoutMs()));
+        merged.setMaxBodyBytes(Optional.ofNullable(patch.getMaxBodyBytes()).orElse(route.getMaxBodyBytes()));
+        merged.setRetryAttempts(Optional.ofNullable(patch.getRetryAttempts()).orElse(route.getRetryAttempts()));
+        merged.setRetryBackoffMs(Optional.ofNullable(patch.getRetryBackoffMs()).orElse(route.getRetryBackoffMs()));
+        merged.setRetryStatuses(Optional.ofNullable(patch.getRetryStatuses()).orElse(route.getRetryStatuses()));
+        merged.setHedge(Optional.ofNullable(patch.getHedge()).orElse(route.getHedge()));
+        merged.setHedgeDelayMs(Optional.ofNullable(patch.getHedgeDelayMs()).orElse(route.getHedgeDelayMs()));
+        merged.setCacheTtlMs(Optional.ofNullable(patch.getCacheTtlMs()).orElse(route.getCacheTtlMs()));
+        merged.setCacheVaryHeaders(
+                Optional.ofNullable(patch.getCacheVaryHeaders()).orElse(route.getCacheVaryHeaders()));
+        merged.setCacheMaxEntryBytes(
+                Optional.ofNullable(patch.getCacheMaxEntryBytes()).orElse(route.getCacheMaxEntryBytes()));
+        merged.setCoalesce(Optional.ofNullable(patch.getCoalesce()).orElse(route.getCoalesce()));
+        merged.setCoalesceHeaders(Optional.ofNullable(patch.getCoalesceHeaders()).orElse(route.getCoalesceHeaders()));
+        merged.setCompression(Optional.ofNullable(patch.getCompression()).orElse(route.getCompression()));
+        merged.setCompressionMinBytes(
+                Optional.ofNullable(patch.getCompressionMinBytes()).orElse(route.getCompressionMinBytes()));
+        merged.setCompressionTypes(
+                Optional.ofNullable(patch.getCompressionTypes()).orElse(route.getCompressionTypes()));
+        merged.setRequestHeaders(Optional.ofNullable(patch.getRequestHeaders()).orElse(route.getRequestHeaders()));
+        merged.setResponseHeaders(Optional.ofNullable(patch.getResponseHeaders()).orElse(route.getResponseHeaders()));
+        merged.setCreatedAt(route.getCreatedAt());
+        merged.setUpdatedAt(now);
+        return merged;
+    }
+
+    private static List<RuleCommand.Result> withVersion(List<RuleCommand.Result> results, String version) {
+        List<RuleCommand.Result> versioned = new ArrayList<>(results.size());
+        for (RuleCommand.Result result : results) {
+            versioned.add(new RuleCommand.Result(result.outcome(), result.id(), result.rule(), version));
+        }
+        return versioned;
+    }
+
+    /**
+     * A fresh timestamp version, nudged forward if the clock has not moved past the current one, so that an
+     * {@code ifVersion} taken before a batch never matches the snapshot published by it.
+     */
+    private static String nextVersion(String current) {
+        Instant now = Instant.now();
+        try {
+            Instant previous = current == null ? null : Instant.parse(current);
+            if (previous != null && !now.isAfter(previous)) {
+                now = previous.plusNanos(1000);
+            }
+        } catch (DateTimeParseException ignored) {
+            // imported snapshots may carry any version string
+        }
+        return now.toString();
+    }
+
+    public synchronized RuleSnapshot replaceSnapshot(RuleSnapshot snapshot) throws IOException {
         String now = Instant.now().toString();
         if (snapshot.getVersion() == null || snapshot.getVersion().isBlank()) {
             snapshot.setVersion(now);
@@ -130,36 +303,92 @@ public class RuleService {
                 route.setUpdatedAt(now);
             }
         }
-        saveSnapshot(snapshot);
+        storage.compact(snapshot);
+        publish(snapshot, "import");
         return snapshot;
     }
 
-    @Scheduled(fixedDelay = 1000)
-    public void reloadIfChanged() {
-        try {
-            long updated = getLastModified();
-            if (updated == lastModified) {
-                return;
-            }
-            RuleSnapshot snapshot = storage.readSnapshot();
-            snapshotRef.set(snapshot);
-            lastModified = updated;
-        } catch (IOException ignored) {
-            // keep previous snapshot
+    /**
+     * Re-reads the rule file and publishes it when its content differs from what was last read or written.
+     *
+     * @return what changed, or empty when the file content is unchanged
+     */
+    public synchronized Optional<RuleDiff> reloadIfChanged() throws IOException {
+        Optional<RuleSnapshot> changed = storage.readIfChanged();
+        if (changed.isEmpty()) {
+            return Optional.empty();
         }
+        return Optional.of(publish(changed.get(), "reload").diff());
     }
 
-    private void saveSnapshot(RuleSnapshot snapshot) throws IOException {
-        storage.writeSnapshot(snapshot);
-        snapshotRef.set(snapshot);
-        updateLastModified();
+    public List<RuleHistory.RuleVersion> versions() {
+        return history.versions();
     }
 
-    private void updateLastModified() throws IOException {
-        this.lastModified = getLastModified();
+    /**
+     * Compares two retained revisions; empty when either has dropped out of the history.
+     */
+    public Optional<RuleChanges> diff(long from, long to) {
+        Optional<RouteTable> before = history.find(from);
+        Optional<RouteTable> after = history.find(to);
+        if (before.isEmpty() || after.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(RuleChanges.between(before.get(), after.get()));
+    }
+
+    /**
+     * Republishes a retained revision without re-parsing or recompiling it, then persists it as the new
+     * compacted snapshot.
+     *
+     * @return the table now serving traffic, or empty when the revision is no longer retained
+     */
+    public synchronized Optional<RouteTable> rollback(long revision) throws IOException {
+        Optional<RouteTable> target = history.find(revision);
+        if (target.isEmpty()) {
+            return Optional.empty();
+        }
+        RouteTable table = RouteTable.restore(target.get(), tableRef.get());
+        activate(table, "rollback " + revision);
+        storage.compact(table.snapshot());
+        return Optional.of(table);
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot file once it has any entries, so replay at startup stays short
+     * even when edits trickle in below the size threshold. Runs on the writer so it queues behind admin edits.
+     */
+    @Scheduled(fixedDelayString = "${gateway.storage.compact-interval-ms:60000}")
+    public void scheduledCompaction() {
+        blocking.write(() -> {
+            compactIfNeeded();
+            return null;
+        }).block();
     }
 
-    private long getLastModified() throws IOException {
-        return Files.getLastModifiedTime(storage.getDataPath()).toMillis();
+    public synchronized void compactIfNeeded() {
+        if (storage.getJournalEntries() == 0) {
+            return;
+        }
+        try {
+            storage.compact(getSnapshot());
+        } catch (IOException ex) {
+            log.warn("Failed to compact rule journal, entries stay in {}", storage.getJournalPath(), ex);
+        }
+    }
+
+    private synchronized RouteTable publish(RuleSnapshot snapshot, String source) {
+        RouteTable table = RouteTable.compile(snapshot, matcher.compile(snapshot.getRoutes()), tableRef.get(),
+                compiler);
+        activate(table, source);
+        return table;
+    }
+
+    private void activate(RouteTable table, String source) {
+        for (RouteTableListener listener : listeners) {
+            listener.onPublish(table);
+        }
+        tableRef.set(table);
+        history.record(table, source);
     }
 }
@@ -1,46 +1,235 @@
 package com.example.gateway.service;
 
 import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
 import com.example.gateway.model.RuleSnapshot;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Rule persistence as a compacted snapshot ({@code routes.json}) plus an append-only journal of mutations
+ * ({@code routes.journal}, one JSON entry per line) made since that snapshot. Mutations cost one appended
+ * and fsynced line each; {@link #compact(RuleSnapshot)} rewrites the snapshot through a temp file and an
+ * atomic rename, then truncates the journal. Journal entries are idempotent upserts and deletes by id, so
+ * replaying them over a snapshot that already contains them (a crash between rename and truncate) is safe,
+ * and a torn last line from a crash mid-append is dropped on replay.
+ */
 @Component
 public class RuleStorage {
+    private static final Logger log = LoggerFactory.getLogger(RuleStorage.class);
+
     private final ObjectMapper mapper;
+    private final ObjectMapper lineMapper;
     private final Path dataPath;
+    private final Path journalPath;
+    private final Path tempPath;
+    private volatile String lastHash;
+    private volatile int journalEntries;
 
     public RuleStorage(GatewayProperties properties, ObjectMapper mapper) {
         this.mapper = mapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        this.lineMapper = mapper.copy().disable(SerializationFeature.INDENT_OUTPUT);
         this.dataPath = Path.of(properties.getDataPath());
+        this.journalPath = sibling(dataPath, ".journal");
+        this.tempPath = sibling(dataPath, ".tmp");
+    }
+
+    /**
+     * Loads the last compacted snapshot and replays the journal on top of it.
+     */
+    public synchronized RuleSnapshot readSnapshot() throws IOException {
+        ensureDataFile();
+        byte[] content = Files.readAllBytes(dataPath);
+        RuleSnapshot snapshot = replay(mapper.readValue(content, RuleSnapshot.class));
+        lastHash = hash(content);
+        return snapshot;
     }
 
-    public RuleSnapshot readSnapshot() throws IOException {
+    /**
+     * Reads the snapshot file only if its content hash differs from the last content read or written here, so
+     * touches, duplicate watch events and the storage's own writes do not trigger a re-parse. Journal entries
+     * not yet compacted are replayed on top of an externally edited file.
+     */
+    public synchronized Optional<RuleSnapshot> readIfChanged() throws IOException {
         ensureDataFile();
-        return mapper.readValue(dataPath.toFile(), RuleSnapshot.class);
+        byte[] content = Files.readAllBytes(dataPath);
+        String contentHash = hash(content);
+        if (contentHash.equals(lastHash)) {
+            return Optional.empty();
+        }
+        RuleSnapshot snapshot = replay(mapper.readValue(content, RuleSnapshot.class));
+        lastHash = contentHash;
+        return Optional.of(snapshot);
     }
 
-    public void writeSnapshot(RuleSnapshot snapshot) throws IOException {
+    /**
+     * Appends mutations to the journal with a single write and fsync.
+     */
+    public synchronized void append(List<JournalEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
         ensureDataFile();
-        mapper.writeValue(dataPath.toFile(), snapshot);
+        boolean created = !Files.exists(journalPath);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (JournalEntry entry : entries) {
+            buffer.write(lineMapper.writeValueAsBytes(entry));
+            buffer.write('\n');
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        if (created) {
+            syncDirectory();
+        }
+        journalEntries += entries.size();
+    }
+
+    /**
+     * Writes a full snapshot as the new checkpoint and empties the journal. The rename is made durable by syncing
+     * the directory before the journal is truncated, so a crash cannot leave the old checkpoint next to an empty
+     * journal.
+     */
+    public synchronized void compact(RuleSnapshot snapshot) throws IOException {
+        ensureDataFile();
+        byte[] content = mapper.writeValueAsBytes(snapshot);
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(content);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        lastHash = hash(content);
+        try {
+            Files.move(tempPath, dataPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempPath, dataPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory();
+        if (Files.exists(journalPath)) {
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        }
+        journalEntries = 0;
+    }
+
+    public int getJournalEntries() {
+        return journalEntries;
     }
 
     public Path getDataPath() {
         return dataPath;
     }
 
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    private RuleSnapshot replay(RuleSnapshot base) throws IOException {
+        journalEntries = 0;
+        if (!Files.exists(journalPath)) {
+            return base;
+        }
+        List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+        List<JournalEntry> entries = new ArrayList<>(lines.size());
+        long validBytes = 0;
+        for (String line : lines) {
+            if (line.isBlank()) {
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                continue;
+            }
+            try {
+                entries.add(lineMapper.readValue(line, JournalEntry.class));
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            } catch (IOException ex) {
+                log.warn("Dropping torn journal tail in {} after {} entries", journalPath, entries.size());
+                try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                }
+                break;
+            }
+        }
+        journalEntries = entries.size();
+        if (entries.isEmpty()) {
+            return base;
+        }
+        return apply(base, entries);
+    }
+
+    static RuleSnapshot apply(RuleSnapshot base, List<JournalEntry> entries) {
+        Map<Object, RouteRule> routes = new LinkedHashMap<>();
+        if (base.getRoutes() != null) {
+            for (RouteRule route : base.getRoutes()) {
+                routes.put(route.getId() == null ? new Object() : route.getId(), route);
+            }
+        }
+        String version = base.getVersion();
+        for (JournalEntry entry : entries) {
+            if (JournalEntry.PUT.equals(entry.op()) && entry.rule() != null && entry.rule().getId() != null) {
+                routes.put(entry.rule().getId(), entry.rule());
+            } else if (JournalEntry.DELETE.equals(entry.op()) && entry.id() != null) {
+                routes.remove(entry.id());
+            }
+            if (entry.version() != null) {
+                version = entry.version();
+            }
+        }
+        RuleSnapshot snapshot = new RuleSnapshot();
+        snapshot.setVersion(version);
+        snapshot.setRoutes(new ArrayList<>(routes.values()));
+        return snapshot;
+    }
+
+    private static Path sibling(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName().toString().replaceFirst("\\.json$", "") + suffix);
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
     private void ensureDataFile() throws IOException {
         if (Files.exists(dataPath)) {
             return;
         }
-        Files.createDirectories(dataPath.getParent());
+        Files.createDirectories(dataPath.toAbsolutePath().getParent());
         ClassPathResource resource = new ClassPathResource("data/routes.json");
         if (resource.exists()) {
             Files.copy(resource.getInputStream(), dataPath);
@@ -49,5 +238,40 @@ public class RuleStorage {
             empty.setVersion(Instant.now().toString());
             mapper.writeValue(dataPath.toFile(), empty);
         }
+        syncDirectory();
+    }
+
+    /**
+     * Forces the data directory's entries to disk, so renames and newly created files survive a crash. Platforms
+     * that cannot open a directory as a channel skip this.
+     */
+    private void syncDirectory() throws IOException {
+        Path directory = dataPath.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException ex) {
+            log.debug("Cannot open {} to sync it: {}", directory, ex.toString());
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * One journal line: {@code put} carries the full rule, {@code delete} only its id.
+     */
+    public record JournalEntry(String op, String version, String id, RouteRule rule) {
+        public static final String PUT = "put";
+        public static final String DELETE = "delete";
+
+        public static JournalEntry put(String version, RouteRule rule) {
+            return new JournalEntry(PUT, version, rule.getId(), rule);
+        }
+
+        public static JournalEntry delete(String version, String id) {
+            return new JournalEntry(DELETE, version, id, null);
+        }
     }
 }
@@ -0,0 +1,165 @@
+package com.example.gateway.service;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming NDJSON import and export of rules, one rule per line.
+ * <p>
+ * Import takes rules one at a time from the NDJSON decoder (Jackson's non-blocking parser) and applies them in
+ * chunks of {@code gateway.storage.import-chunk-size} as {@code put} batches on the {@link BlockingExecutor}
+ * writer, so only one chunk is held in memory and each chunk costs one journal append and one publish; the
+ * journal is compacted once at the end. Invalid rules are reported by line and skipped. With {@code replace},
+ * rules the stream did not mention are deleted once it ends; a rejected line still counts as a mention, so the
+ * rule it failed to update is kept. The import is not atomic: each chunk is visible as soon as it is applied,
+ * and a malformed line stops the stream after the chunks before it.
+ * <p>
+ * Export walks the published snapshot's rule list, which is never modified once published, and writes
+ * {@value #EXPORT_LINES} lines per buffer.
+ */
+@Component
+public class RuleTransfer {
+    private static final int MAX_ERRORS = 100;
+    private static final int EXPORT_LINES = 256;
+    private static final byte NEWLINE = '\n';
+
+    private final RuleService ruleService;
+    private final BlockingExecutor blocking;
+    private final ObjectWriter writer;
+    private final int chunkSize;
+
+    public RuleTransfer(RuleService ruleService, BlockingExecutor blocking, ObjectMapper mapper,
+                        GatewayProperties properties) {
+        this.ruleService = ruleService;
+        this.blocking = blocking;
+        this.writer = mapper.writerFor(RouteRule.class);
+        this.chunkSize = Math.max(1, properties.getStorage().getImportChunkSize());
+    }
+
+    public Mono<ImportSummary> importRules(Flux<RouteRule> rules, boolean replace) {
+        return Mono.defer(() -> {
+            Tally tally = new Tally();
+            return rules.index()
+                    .buffer(chunkSize)
+                    .concatMap(chunk -> blocking.write(() -> applyChunk(chunk, tally)))
+                    .then(blocking.write(() -> finish(tally, replace)))
+                    .then(Mono.fromSupplier(() -> tally.summary(ruleService.getSnapshot().getVersion())));
+        });
+    }
+
+    public Flux<DataBuffer> exportRules(List<RouteRule> routes, DataBufferFactory buffers) {
+        return Flux.fromIterable(routes)
+                .buffer(EXPORT_LINES)
+                .map(lines -> encode(lines, buffers));
+    }
+
+    private DataBuffer encode(List<RouteRule> lines, DataBufferFactory buffers) {
+        DataBuffer buffer = buffers.allocateBuffer(lines.size() * 512);
+        try {
+            for (RouteRule rule : lines) {
+                buffer.write(writer.writeValueAsBytes(rule));
+                buffer.write(NEWLINE);
+            }
+            return buffer;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot encode rule", ex);
+        }
+    }
+
+    private Boolean applyChunk(List<Tuple2<Long, RouteRule>> chunk, Tally tally) throws Exception {
+        List<RuleCommand> commands = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, RouteRule> line : chunk) {
+            commands.add(RuleCommand.put(line.getT2()));
+        }
+        List<RuleCommand.Result> results = ruleService.apply(commands, false);
+        tally.batches++;
+        for (int i = 0; i < results.size(); i++) {
+            RuleCommand.Result result = results.get(i);
+            tally.lines++;
+            tally.version = result.version();
+            if (result.id() != null) {
+                tally.seen.add(result.id());
+            }
+            if (result.applied()) {
+                tally.applied++;
+            } else {
+                tally.rejected(chunk.get(i).getT1() + 1, result);
+            }
+        }
+        return Boolean.TRUE;
+    }
+
+    private Boolean finish(Tally tally, boolean replace) throws Exception {
+        if (replace) {
+            List<RuleCommand> deletes = new ArrayList<>();
+            for (RouteRule route : ruleService.getSnapshot().getRoutes()) {
+                if (!tally.seen.contains(route.getId())) {
+                    deletes.add(RuleCommand.delete(route.getId(), null));
+                }
+            }
+            for (int from = 0; from < deletes.size(); from += chunkSize) {
+                List<RuleCommand.Result> results = ruleService.apply(
+                        deletes.subList(from, Math.min(deletes.size(), from + chunkSize)), false);
+                tally.batches++;
+                for (RuleCommand.Result result : results) {
+                    tally.version = result.version();
+                    if (result.applied()) {
+                        tally.removed++;
+                    }
+                }
+            }
+        }
+        ruleService.compactIfNeeded();
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Running totals; only touched by chunk tasks, which the writer runs one after another.
+     */
+    private static final class Tally {
+        private final Set<String> seen = new HashSet<>();
+        private final List<LineError> errors = new ArrayList<>();
+        private long lines;
+        private long applied;
+        private long invalid;
+        private long removed;
+        private int batches;
+        private String version;
+
+        void rejected(long line, RuleCommand.Result result) {
+            invalid++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new LineError(line, result.id(), result.outcome().name()));
+            }
+        }
+
+        ImportSummary summary(String currentVersion) {
+            return new ImportSummary(lines, applied, invalid, removed, batches,
+                    version == null ? currentVersion : version, List.copyOf(errors));
+        }
+    }
+
+    /**
+     * {@code errors} lists at most the first hundred rejected lines, numbered from 1.
+     */
+    public record ImportSummary(long lines, long applied, long invalid, long removed, int batches, String version,
+                                List<LineError> errors) {
+    }
+
+    public record LineError(long line, String id, String outcome) {
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.gateway.service;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.RouteVariant;
+import com.example.gateway.service.filter.ApiKeyAuthFilterFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Weighted split of one route's traffic between the rule itself ({@value #STABLE}) and its
+ * {@link RouteRule#getVariants() variants}, each compiled into its own {@link CompiledRoute}. Weights are
+ * percentages; whatever the variants leave of 100 goes to the rule itself, and if they add up to more than 100
+ * they are taken as relative weights instead. {@code splitKey} picks the bucket: by default every request is
+ * drawn at random, while {@code header:<name>}, {@code apiKey} and {@code ip} hash that value so the same
+ * caller keeps landing on the same variant. Selection hashes a string that is already there (header values
+ * and the client address are not copied) and scans a few cumulative bounds, so it allocates nothing.
+ */
+public final class TrafficSplit {
+    public static final String STABLE = "stable";
+    public static final String VARIANT_HEADER = "X-Gateway-Variant";
+    static final char METRICS_SEPARATOR = '#';
+
+    private final CompiledRoute[] routes;
+    private final String[] names;
+    private final String[] metricsKeys;
+    private final int[] bounds;
+    private final int total;
+    private final KeyType keyType;
+    private final String header;
+
+    private TrafficSplit(CompiledRoute[] routes, String[] names, String[] metricsKeys, int[] bounds,
+                         KeyType keyType, String header) {
+        this.routes = routes;
+        this.names = names;
+        this.metricsKeys = metricsKeys;
+        this.bounds = bounds;
+        this.total = bounds[bounds.length - 1];
+        this.keyType = keyType;
+        this.header = header;
+    }
+
+    static boolean declared(RouteRule rule) {
+        if (rule.getVariants() == null) {
+            return false;
+        }
+        for (RouteVariant variant : rule.getVariants()) {
+            if (variant != null && variant.getWeight() != null && variant.getWeight() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The rule as served to its own share of the traffic. Split routes are neither cached nor coalesced: the
+     * cache key does not tell variants apart, so a response from one variant could be replayed for another.
+     */
+    static RouteRule stable(RouteRule rule) {
+        RouteRule stable = rule.copy();
+        stable.setVariants(null);
+        stable.setSplitKey(null);
+        stable.setCacheTtlMs(null);
+        stable.setCoalesce(null);
+        return stable;
+    }
+
+    /**
+     * @param stable   the compiled rule itself, served for the {@value #STABLE} share
+     * @param compiler compiles a variant's effective rule
+     */
+    static TrafficSplit compile(RouteRule rule, CompiledRoute stable, Function<RouteRule, CompiledRoute> compiler) {
+        List<CompiledRoute> routes = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int sum = 0;
+        for (RouteVariant variant : rule.getVariants()) {
+            if (variant == null || variant.getWeight() == null || variant.getWeight() <= 0) {
+                continue;
+            }
+            String name = variant.getName() == null || variant.getName().isBlank()
+                    ? "v" + (names.size() + 1)
+                    : variant.getName().trim();
+            routes.add(compiler.apply(effective(rule, variant)));
+            names.add(name);
+            weights.add(variant.getWeight());
+            sum += variant.getWeight();
+        }
+        if (sum < 100) {
+            routes.add(0, stable);
+            names.add(0, STABLE);
+            weights.add(0, 100 - sum);
+        }
+        int[] bounds = new int[weights.size()];
+        String[] metricsKeys = new String[names.size()];
+        int bound = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            bound += weights.get(i);
+            bounds[i] = bound;
+            metricsKeys[i] = metricsKey(rule.getId(), names.get(i));
+        }
+        String splitKey = rule.getSplitKey() == null ? "" : rule.getSplitKey().trim();
+        KeyType keyType = KeyType.parse(splitKey);
+        return new TrafficSplit(routes.toArray(new CompiledRoute[0]), names.toArray(new String[0]), metricsKeys,
+                bounds, keyType, keyType == KeyType.HEADER ? splitKey.substring(splitKey.indexOf(':') + 1).trim()
+                        : null);
+    }
+
+    private static RouteRule effective(RouteRule rule, RouteVariant variant) {
+        RouteRule effective = stable(rule);
+        if (variant.getTargets() != null && !variant.getTargets().isEmpty()) {
+            effective.setTargets(variant.getTargets());
+        } else if (variant.getTarget() != null) {
+            effective.setTarget(variant.getTarget());
+            effective.setTargets(null);
+        }
+        if (variant.getRewrite() != null) {
+            effective.setRewrite(variant.getRewrite());
+        }
+        if (variant.getTimeoutMs() != null) {
+            effective.setTimeoutMs(variant.getTimeoutMs());
+        }
+        if (variant.getRequestHeaders() != null) {
+            effective.setRequestHeaders(variant.getRequestHeaders());
+        }
+        return effective;
+    }
+
+    public static String metricsKey(String routeId, String variant) {
+        return routeId + METRICS_SEPARATOR + variant;
+    }
+
+    /**
+     * The index of the variant that serves {@code request}.
+     */
+    public int select(ServerHttpRequest request) {
+        int hash;
+        switch (keyType) {
+            case HEADER, API_KEY -> {
+                String value = request.getHeaders().getFirst(keyType == KeyType.HEADER
+                        ? header
+                        : ApiKeyAuthFilterFactory.HEADER);
+                if (value == null) {
+                    return random();
+                }
+                hash = value.hashCode();
+            }
+            case IP -> {
+                InetSocketAddress remote = request.getRemoteAddress();
+                if (remote == null || remote.getAddress() == null) {
+                    return random();
+                }
+                hash = remote.getAddress().hashCode();
+            }
+            default -> {
+                return random();
+            }
+        }
+        return bucket(Integer.remainderUnsigned(mix(hash), total));
+    }
+
+    private int random() {
+        return bucket(ThreadLocalRandom.current().nextInt(total));
+    }
+
+    private int bucket(int point) {
+        for (int i = 0; i < bounds.length - 1; i++) {
+            if (point < bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length - 1;
+    }
+
+    /**
+     * MurmurHash3's finaliser, so that similar keys (sequential user ids) spread over all buckets.
+     */
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    public int size() {
+        return routes.length;
+    }
+
+    public CompiledRoute route(int variant) {
+        return routes[variant];
+    }
+
+    public String name(int variant) {
+        return names[variant];
+    }
+
+    public String metricsKey(int variant) {
+        return metricsKeys[variant];
+    }
+
+    /**
+     * Share of traffic of a variant, in percent of the whole route.
+     */
+    public double share(int variant) {
+        int from = variant == 0 ? 0 : bounds[variant - 1];
+        return (bounds[variant] - from) * 100.0 / total;
+    }
+
+    enum KeyType {
+        RANDOM, HEADER, API_KEY, IP;
+
+        static KeyType parse(String value) {
+            String key = value.toLowerCase(Locale.ROOT);
+            if (key.startsWith("header:") && key.length() > "header:".length()) {
+                return HEADER;
+            }
+            return switch (key) {
+                case "apikey", "api_key", "api-key" -> API_KEY;
+                case "ip", "clientip" -> IP;
+                default -> RANDOM;
+            };
+        }
+    }
+}
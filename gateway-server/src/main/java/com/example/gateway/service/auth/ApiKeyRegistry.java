@@ -0,0 +1,238 @@
+package com.example.gateway.service.auth;
+
+import com.example.gateway.config.GatewayProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API keys kept apart from the rule snapshot, in {@code api-keys.json} next to {@code routes.json}. Only a salted
+ * SHA-256 of each key is stored. Issued keys look like {@code gk_<id>.<secret>}; the id part indexes the
+ * registry, so verifying costs one map lookup plus one hash and a constant-time compare, and keys already
+ * verified skip the hash through a bounded cache. Revoking a key takes effect immediately and does not touch
+ * the rule snapshot.
+ */
+@Component
+public class ApiKeyRegistry {
+    static final String PREFIX = "gk_";
+    private static final char SEPARATOR = '.';
+    private static final int ID_BYTES = 6;
+    private static final int SECRET_BYTES = 32;
+    private static final int SALT_BYTES = 16;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ObjectMapper mapper;
+    private final Path path;
+    private final Path tempPath;
+    private final Cache<String, String> verified;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Map<String, StoredKey> keys;
+
+    public ApiKeyRegistry(GatewayProperties properties, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        this.path = Path.of(properties.getDataPath()).resolveSibling("api-keys.json");
+        this.tempPath = path.resolveSibling("api-keys.tmp");
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getAuth().getVerifiedCacheSize())
+                .build();
+        this.keys = load();
+    }
+
+    /**
+     * Returns the key a presented value belongs to, or {@code null} if it is malformed, unknown, revoked or
+     * does not match.
+     */
+    public StoredKey verify(String presented) {
+        String cachedId = verified.getIfPresent(presented);
+        if (cachedId != null) {
+            StoredKey key = keys.get(cachedId);
+            if (key != null && key.active()) {
+                cacheHits.increment();
+                return key;
+            }
+        }
+        String id = idOf(presented);
+        StoredKey key = id == null ? null : keys.get(id);
+        if (key == null || !key.active() || !MessageDigest.isEqual(key.hashBytes(),
+                hash(key.saltBytes(), presented))) {
+            misses.increment();
+            return null;
+        }
+        verified.put(presented, id);
+        return key;
+    }
+
+    /**
+     * Creates a key and returns it in plain text; this is the only time the secret is available.
+     */
+    public synchronized IssuedKey issue(String consumer, List<String> routes, List<String> groups)
+            throws IOException {
+        String id = HexFormat.of().formatHex(randomBytes(ID_BYTES));
+        String plain = PREFIX + id + SEPARATOR
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes(SECRET_BYTES));
+        byte[] salt = randomBytes(SALT_BYTES);
+        StoredKey key = new StoredKey(id, consumer, routes == null ? List.of() : List.copyOf(routes),
+                groups == null ? List.of() : List.copyOf(groups), Base64.getEncoder().encodeToString(salt),
+                Base64.getEncoder().encodeToString(hash(salt, plain)), Instant.now().toString(), null);
+        Map<String, StoredKey> next = new LinkedHashMap<>(keys);
+        next.put(id, key);
+        save(next);
+        return new IssuedKey(key.view(), plain);
+    }
+
+    public synchronized Optional<KeyView> revoke(String id) throws IOException {
+        StoredKey key = keys.get(id);
+        if (key == null) {
+            return Optional.empty();
+        }
+        if (key.active()) {
+            Map<String, StoredKey> next = new LinkedHashMap<>(keys);
+            key = key.revoked(Instant.now().toString());
+            next.put(id, key);
+            save(next);
+            verified.asMap().values().removeIf(id::equals);
+        }
+        return Optional.of(key.view());
+    }
+
+    public List<KeyView> list() {
+        List<KeyView> views = new ArrayList<>();
+        for (StoredKey key : keys.values()) {
+            views.add(key.view());
+        }
+        return views;
+    }
+
+    public RegistryStats stats() {
+        long active = keys.values().stream().filter(StoredKey::active).count();
+        return new RegistryStats(keys.size(), active, verified.estimatedSize(), cacheHits.sum(), misses.sum());
+    }
+
+    private static String idOf(String presented) {
+        if (presented == null || !presented.startsWith(PREFIX)) {
+            return null;
+        }
+        int separator = presented.indexOf(SEPARATOR, PREFIX.length());
+        return separator < 0 ? null : presented.substring(PREFIX.length(), separator);
+    }
+
+    private Map<String, StoredKey> load() throws IOException {
+        Map<String, StoredKey> loaded = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            List<StoredKey> stored = mapper.readValue(path.toFile(), new TypeReference<List<StoredKey>>() {
+            });
+            for (StoredKey key : stored) {
+                loaded.put(key.id(), key);
+            }
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    private void save(Map<String, StoredKey> next) throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        byte[] content = mapper.writeValueAsBytes(new ArrayList<>(next.values()));
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(content);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        keys = Collections.unmodifiableMap(next);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    static byte[] hash(byte[] salt, String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * One line of {@code api-keys.json}. {@code routes} and {@code groups} list the rule ids and rule groups the
+     * key opens; {@code "*"} in {@code routes} opens every route.
+     */
+    public record StoredKey(String id, String consumer, List<String> routes, List<String> groups, String salt,
+                            String hash, String createdAt, String revokedAt) {
+
+        public boolean active() {
+            return revokedAt == null;
+        }
+
+        public boolean allows(String routeId, String group) {
+            List<String> routeIds = routes == null ? List.of() : routes;
+            return routeIds.contains("*") || (routeId != null && routeIds.contains(routeId))
+                    || (group != null && groups != null && groups.contains(group));
+        }
+
+        byte[] saltBytes() {
+            return Base64.getDecoder().decode(salt);
+        }
+
+        byte[] hashBytes() {
+            return Base64.getDecoder().decode(hash);
+        }
+
+        StoredKey revoked(String at) {
+            return new StoredKey(id, consumer, routes, groups, salt, hash, createdAt, at);
+        }
+
+        KeyView view() {
+            return new KeyView(id, consumer, routes, groups, createdAt, revokedAt);
+        }
+    }
+
+    public record KeyView(String id, String consumer, List<String> routes, List<String> groups, String createdAt,
+                          String revokedAt) {
+    }
+
+    public record IssuedKey(KeyView key, String apiKey) {
+    }
+
+    public record RegistryStats(int keys, long active, long cachedVerifications, long cacheHits, long misses) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.gateway.service.auth;
+
+import com.example.gateway.config.GatewayProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named JWK sets read from local files ({@code gateway.auth.jwk-sets: {name: path}}). Supported keys are RSA,
+ * EC on P-256 and symmetric {@code oct} keys, which also serve as HMAC request-signing secrets. Files are
+ * re-read when their modification time changes; each load bumps the set's generation so verification results
+ * cached under an older key set are no longer found.
+ */
+@Component
+public class JwkSetRegistry {
+    private static final Logger log = LoggerFactory.getLogger(JwkSetRegistry.class);
+
+    private final ObjectMapper mapper;
+    private final Map<String, Path> files = new HashMap<>();
+    private final Map<String, Long> modified = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, JwkSet> sets = new ConcurrentHashMap<>();
+
+    public JwkSetRegistry(GatewayProperties properties, ObjectMapper mapper) {
+        this.mapper = mapper;
+        properties.getAuth().getJwkSets().forEach((name, file) -> files.put(name, Path.of(file)));
+        refresh();
+    }
+
+    public JwkSet get(String name) {
+        return name == null ? null : sets.get(name);
+    }
+
+    /**
+     * Installs a set from its JSON form ({@code {"keys": [...]}}); keys that cannot be parsed are skipped.
+     */
+    public JwkSet put(String name, String json) throws IOException {
+        List<Jwk> keys = new ArrayList<>();
+        for (JsonNode node : mapper.readTree(json).path("keys")) {
+            try {
+                keys.add(parse(node));
+            } catch (GeneralSecurityException | IllegalArgumentException ex) {
+                log.warn("Skipping JWK {} in set {}: {}", node.path("kid").asText(null), name, ex.getMessage());
+            }
+        }
+        JwkSet previous = sets.get(name);
+        JwkSet set = new JwkSet(name, previous == null ? 1 : previous.generation() + 1, List.copyOf(keys));
+        sets.put(name, set);
+        return set;
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.auth.jwks-refresh-ms:60000}")
+    public void refresh() {
+        files.forEach((name, file) -> {
+            try {
+                long lastModified = Files.getLastModifiedTime(file).toMillis();
+                if (Long.valueOf(lastModified).equals(modified.get(name))) {
+                    return;
+                }
+                JwkSet set = put(name, Files.readString(file));
+                modified.put(name, lastModified);
+                log.info("Loaded JWK set {} ({} keys) from {}", name, set.keys().size(), file);
+            } catch (IOException ex) {
+                log.warn("Cannot load JWK set {} from {}: {}", name, file, ex.toString());
+            }
+        });
+    }
+
+    static Jwk parse(JsonNode node) throws GeneralSecurityException {
+        String kty = node.path("kty").asText("");
+        String kid = node.path("kid").asText(null);
+        String alg = node.path("alg").asText(null);
+        Key key;
+        switch (kty) {
+            case "RSA" -> key = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                    unsigned(node, "n"), unsigned(node, "e")));
+            case "EC" -> {
+                if (!"P-256".equals(node.path("crv").asText())) {
+                    throw new IllegalArgumentException("unsupported curve " + node.path("crv").asText());
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec("secp256r1"));
+                key = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+                        new ECPoint(unsigned(node, "x"), unsigned(node, "y")),
+                        parameters.getParameterSpec(ECParameterSpec.class)));
+            }
+            case "oct" -> key = new SecretKeySpec(bytes(node, "k"), "HmacSHA256");
+            default -> throw new IllegalArgumentException("unsupported key type " + kty);
+        }
+        return new Jwk(kid, kty, alg, key);
+    }
+
+    private static BigInteger unsigned(JsonNode node, String field) {
+        return new BigInteger(1, bytes(node, field));
+    }
+
+    private static byte[] bytes(JsonNode node, String field) {
+        String value = node.path(field).asText(null);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + field);
+        }
+        return Base64.getUrlDecoder().decode(value);
+    }
+
+    public record Jwk(String kid, String kty, String alg, Key key) {
+
+        boolean supports(String algorithm) {
+            if (alg != null && !alg.equals(algorithm)) {
+                return false;
+            }
+            return switch (algorithm) {
+                case "RS256" -> kty.equals("RSA");
+                case "ES256" -> kty.equals("EC");
+                case "HS256" -> kty.equals("oct");
+                default -> false;
+            };
+        }
+    }
+
+    public record JwkSet(String name, long generation, List<Jwk> keys) {
+
+        /**
+         * The key for {@code kid} that can verify {@code algorithm}; without a kid, the only such key if there is
+         * exactly one.
+         */
+        public Jwk find(String kid, String algorithm) {
+            Jwk match = null;
+            for (Jwk key : keys) {
+                if (!key.supports(algorithm)) {
+                    continue;
+                }
+                if (kid != null) {
+                    if (kid.equals(key.kid())) {
+                        return key;
+                    }
+                } else if (match == null) {
+                    match = key;
+                } else {
+                    return null;
+                }
+            }
+            return kid == null ? match : null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.gateway.service.auth;
+
+import com.example.gateway.config.GatewayProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies compact JWS tokens (RS256, ES256, HS256) against a {@link JwkSetRegistry} set. Tokens must carry
+ * {@code exp}; {@code nbf} is honoured, both with {@code gateway.auth.clock-skew-seconds} of leeway. A verified
+ * token is cached under the SHA-256 of its text, the set name and the set generation until it expires, so a
+ * repeat call costs one digest instead of the signature check.
+ */
+@Component
+public class JwtVerifier {
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final JwkSetRegistry jwkSets;
+    private final ObjectMapper mapper;
+    private final Cache<String, VerifiedToken> cache;
+    private final long skewMillis;
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public JwtVerifier(JwkSetRegistry jwkSets, ObjectMapper mapper, GatewayProperties properties) {
+        this(jwkSets, mapper, properties.getAuth().getTokenCacheSize(),
+                TimeUnit.SECONDS.toMillis(properties.getAuth().getClockSkewSeconds()));
+    }
+
+    /**
+     * A {@code cacheSize} of zero disables the verified-token cache.
+     */
+    public JwtVerifier(JwkSetRegistry jwkSets, ObjectMapper mapper, int cacheSize, long skewMillis) {
+        this.jwkSets = jwkSets;
+        this.mapper = mapper;
+        this.skewMillis = skewMillis;
+        this.cache = cacheSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new TokenExpiry(skewMillis))
+                .build();
+    }
+
+    /**
+     * Returns the token's claims, or {@code null} if the set is unknown or the token is malformed, signed by no
+     * key of the set, expired or not yet valid.
+     */
+    public VerifiedToken verify(String setName, String token) {
+        JwkSetRegistry.JwkSet set = jwkSets.get(setName);
+        if (set == null || token == null) {
+            rejected.increment();
+            return null;
+        }
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = set.name() + ':' + set.generation() + ':' + digest(token);
+            VerifiedToken cached = cache.getIfPresent(cacheKey);
+            if (cached != null && cached.isValid(System.currentTimeMillis(), skewMillis)) {
+                cacheHits.increment();
+                return cached;
+            }
+        }
+        VerifiedToken result = verifySignature(set, token);
+        if (result == null) {
+            rejected.increment();
+            return null;
+        }
+        verified.increment();
+        if (cache != null) {
+            cache.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    private VerifiedToken verifySignature(JwkSetRegistry.JwkSet set, String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0 || token.indexOf('.', second + 1) >= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            Map<String, Object> header = mapper.readValue(decoder.decode(token.substring(0, first)), JSON_OBJECT);
+            String algorithm = header.get("alg") instanceof String alg ? alg : null;
+            String kid = header.get("kid") instanceof String id ? id : null;
+            JwkSetRegistry.Jwk jwk = algorithm == null ? null : set.find(kid, algorithm);
+            if (jwk == null) {
+                return null;
+            }
+            byte[] signingInput = token.substring(0, second).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = decoder.decode(token.substring(second + 1));
+            if (!checkSignature(algorithm, jwk, signingInput, signature)) {
+                return null;
+            }
+            Map<String, Object> claims = mapper.readValue(decoder.decode(token.substring(first + 1, second)),
+                    JSON_OBJECT);
+            if (!(claims.get("exp") instanceof Number exp)) {
+                return null;
+            }
+            long notBefore = claims.get("nbf") instanceof Number nbf ? nbf.longValue() * 1000L : 0L;
+            VerifiedToken result = new VerifiedToken(claims, exp.longValue() * 1000L, notBefore);
+            return result.isValid(System.currentTimeMillis(), skewMillis) ? result : null;
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static boolean checkSignature(String algorithm, JwkSetRegistry.Jwk jwk, byte[] input, byte[] signature)
+            throws GeneralSecurityException {
+        switch (algorithm) {
+            case "HS256": {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(jwk.key());
+                return MessageDigest.isEqual(mac.doFinal(input), signature);
+            }
+            case "RS256":
+            case "ES256": {
+                // ES256 signatures are the raw r || s pair, which the P1363 variant reads directly
+                Signature verifier = Signature.getInstance(algorithm.equals("RS256")
+                        ? "SHA256withRSA"
+                        : "SHA256withECDSAinP1363Format");
+                verifier.initVerify((PublicKey) jwk.key());
+                verifier.update(input);
+                return verifier.verify(signature);
+            }
+            default:
+                return false;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public TokenStats stats() {
+        return new TokenStats(verified.sum(), cacheHits.sum(), rejected.sum(),
+                cache == null ? 0 : cache.estimatedSize());
+    }
+
+    /**
+     * Claims of a verified token. {@code expiresAt} and {@code notBefore} are epoch milliseconds.
+     */
+    public record VerifiedToken(Map<String, Object> claims, long expiresAt, long notBefore) {
+
+        boolean isValid(long now, long skewMillis) {
+            return now < expiresAt + skewMillis && now + skewMillis >= notBefore;
+        }
+
+        public String claim(String name) {
+            Object value = claims.get(name);
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof List<?> values) {
+                StringBuilder joined = new StringBuilder();
+                for (Object item : values) {
+                    if (!joined.isEmpty()) {
+                        joined.append(',');
+                    }
+                    joined.append(item);
+                }
+                return joined.toString();
+            }
+            return String.valueOf(value);
+        }
+
+        public boolean hasAudience(String audience) {
+            Object aud = claims.get("aud");
+            return aud instanceof List<?> values ? values.contains(audience) : audience.equals(aud);
+        }
+    }
+
+    public record TokenStats(long verified, long cacheHits, long rejected, long cached) {
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        private final long skewMillis;
+
+        TokenExpiry(long skewMillis) {
+            this.skewMillis = skewMillis;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long remaining = token.expiresAt() + skewMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.gateway.service.cache;
+
+import com.example.gateway.model.RouteRule;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response cache settings of one route. Only {@code GET} responses are cached; the key is the route id, the
+ * request path and raw query, and the values of the vary-by headers: the caller's credentials
+ * ({@code Authorization}, {@code Cookie}, {@code X-API-Key} and the {@code X-Consumer-Id} set by the auth
+ * filters) followed by the configured {@code cacheVaryHeaders}, so one consumer's response is never served to
+ * another. A {@code null} policy means the route is not cached.
+ */
+public record CachePolicy(String routeId, long ttlMs, List<String> varyHeaders, long maxEntryBytes) {
+    static final long DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+    static final char SEPARATOR = '\n';
+    static final List<String> CREDENTIAL_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE,
+            "X-API-Key", "X-Consumer-Id");
+
+    public static CachePolicy from(RouteRule route) {
+        Integer ttl = route.getCacheTtlMs();
+        if (ttl == null || ttl <= 0 || route.getId() == null) {
+            return null;
+        }
+        List<String> vary = new ArrayList<>(CREDENTIAL_HEADERS);
+        if (route.getCacheVaryHeaders() != null) {
+            for (String name : route.getCacheVaryHeaders()) {
+                if (name != null && !name.isBlank() && vary.stream().noneMatch(name.trim()::equalsIgnoreCase)) {
+                    vary.add(name.trim());
+                }
+            }
+        }
+        Long maxEntry = route.getCacheMaxEntryBytes();
+        return new CachePolicy(route.getId(), ttl, List.copyOf(vary),
+                maxEntry == null || maxEntry <= 0 ? DEFAULT_MAX_ENTRY_BYTES : maxEntry);
+    }
+
+    public String key(String path, String rawQuery, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(routeId.length() + path.length() + 32)
+                .append(routeId).append(SEPARATOR).append(path);
+        if (rawQuery != null) {
+            key.append('?').append(rawQuery);
+        }
+        for (String name : varyHeaders) {
+            key.append(SEPARATOR).append(name).append('=');
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Whether the key spreads over every header named in an upstream {@code Vary}; otherwise a stored response
+     * could be served to a request it was not negotiated for.
+     */
+    boolean covers(List<String> upstreamVary) {
+        for (String value : upstreamVary) {
+            for (String name : value.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.equals("*") || varyHeaders.stream().noneMatch(trimmed::equalsIgnoreCase)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    static String routeOf(String key) {
+        int end = key.indexOf(SEPARATOR);
+        return end < 0 ? key : key.substring(0, end);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.gateway.service.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A fully read upstream response. The body lives in a direct buffer, so cached bytes stay off the Java heap
+ * and are written to the client without another copy; the buffer is released when the entry is collected.
+ * {@code ttlMs} is how long the response may be stored, zero if not at all, and {@code shared} whether it may
+ * be handed to other requests coalesced on the same key.
+ */
+public final class CachedResponse {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocateDirect(0);
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final ByteBuffer body;
+    private final String etag;
+    private final long lastModified;
+    private final long storedAt;
+    private final long ttlMs;
+    private final boolean shared;
+
+    private CachedResponse(int status, HttpHeaders headers, ByteBuffer body, long ttlMs, boolean shared) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = headers.getETag();
+        this.lastModified = headers.getLastModified();
+        this.storedAt = System.currentTimeMillis();
+        this.ttlMs = ttlMs;
+        this.shared = shared;
+    }
+
+    /**
+     * Applies the upstream {@code Cache-Control} to the route policy: {@code no-store}, {@code private} and
+     * {@code Set-Cookie} make a response neither storable nor shareable, {@code no-cache} or a zero
+     * {@code max-age} make it not storable, and {@code s-maxage} or {@code max-age} shorten the route TTL.
+     * Without a policy the response is only judged for sharing.
+     */
+    public static CachedResponse of(CachePolicy policy, int status, HttpHeaders headers, ByteBuffer body) {
+        boolean shared = !headers.containsKey(HttpHeaders.SET_COOKIE);
+        boolean storable = policy != null && status == 200 && policy.covers(headers.getOrEmpty(HttpHeaders.VARY));
+        long ttl = policy == null ? 0L : policy.ttlMs();
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                String name = directive.trim().toLowerCase(Locale.ROOT);
+                if (name.equals("no-store") || name.startsWith("private")) {
+                    shared = false;
+                } else if (name.startsWith("no-cache")) {
+                    storable = false;
+                } else if (name.startsWith("s-maxage=")) {
+                    sharedMaxAge = seconds(name.substring("s-maxage=".length()));
+                } else if (name.startsWith("max-age=")) {
+                    maxAge = seconds(name.substring("max-age=".length()));
+                }
+            }
+        }
+        long upstreamAge = sharedMaxAge >= 0 ? sharedMaxAge : maxAge;
+        if (upstreamAge >= 0) {
+            ttl = Math.min(ttl, upstreamAge * 1000L);
+        }
+        return new CachedResponse(status, headers, body == null ? EMPTY : body,
+                shared && storable ? Math.max(0L, ttl) : 0L, shared);
+    }
+
+    private static long seconds(String value) {
+        try {
+            return Long.parseLong(value.trim().replace("\"", ""));
+        } catch (NumberFormatException ex) {
+            return 0L;
+        }
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * A private view of the body for one write; the stored buffer's position never moves.
+     */
+    public ByteBuffer body() {
+        return body.duplicate();
+    }
+
+    public int length() {
+        return body.remaining();
+    }
+
+    public boolean storable() {
+        return ttlMs > 0;
+    }
+
+    public boolean shared() {
+        return shared;
+    }
+
+    public Duration ttl() {
+        return Duration.ofMillis(ttlMs);
+    }
+
+    public long ageSeconds() {
+        return Math.max(0L, (System.currentTimeMillis() - storedAt) / 1000L);
+    }
+
+    /**
+     * Whether the request's validators match, so a {@code 304} can stand in for the body. {@code If-None-Match}
+     * takes precedence over {@code If-Modified-Since}, as in RFC 9110.
+     */
+    public boolean notModified(HttpHeaders request) {
+        if (status != 200) {
+            return false;
+        }
+        List<String> ifNoneMatch = request.getOrEmpty(HttpHeaders.IF_NONE_MATCH);
+        if (!ifNoneMatch.isEmpty()) {
+            if (etag == null) {
+                return false;
+            }
+            String weak = etag.startsWith("W/") ? etag.substring(2) : etag;
+            for (String value : ifNoneMatch) {
+                for (String tag : value.split(",")) {
+                    String candidate = tag.trim();
+                    if (candidate.equals("*") || candidate.equals(etag) || candidate.equals(weak)
+                            || candidate.equals("W/" + weak)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            long since = request.getIfModifiedSince();
+            return since >= 0 && lastModified / 1000L <= since / 1000L;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    int weight(String key) {
+        long headerBytes = 0;
+        for (var entry : headers.entrySet()) {
+            headerBytes += entry.getKey().length();
+            for (String value : entry.getValue()) {
+                headerBytes += value.length();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, body.capacity() + 2L * (key.length() + headerBytes) + 128);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.gateway.service.cache;
+
+import com.example.gateway.model.RouteRule;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-flight settings of one route: identical concurrent {@code GET}s share one upstream call. Requests
+ * are identical when method, path, raw query and the selected headers match; the caller's credentials
+ * ({@link CachePolicy#CREDENTIAL_HEADERS}) are always part of the key, so one caller's response is never handed
+ * to another. A {@code null} policy means the route does not coalesce.
+ */
+public record CoalescePolicy(String routeId, List<String> headers) {
+
+    public static CoalescePolicy from(RouteRule route) {
+        if (!Boolean.TRUE.equals(route.getCoalesce()) || route.getId() == null) {
+            return null;
+        }
+        List<String> headers = new ArrayList<>(CachePolicy.CREDENTIAL_HEADERS);
+        if (route.getCoalesceHeaders() != null) {
+            for (String name : route.getCoalesceHeaders()) {
+                if (name != null && !name.isBlank()
+                        && headers.stream().noneMatch(name.trim()::equalsIgnoreCase)) {
+                    headers.add(name.trim());
+                }
+            }
+        }
+        return new CoalescePolicy(route.getId(), List.copyOf(headers));
+    }
+
+    public String key(String method, String path, String rawQuery, HttpHeaders requestHeaders) {
+        StringBuilder key = new StringBuilder(routeId.length() + path.length() + 32)
+                .append(routeId).append(CachePolicy.SEPARATOR).append(method).append(' ').append(path);
+        if (rawQuery != null) {
+            key.append('?').append(rawQuery);
+        }
+        for (String name : headers) {
+            List<String> values = requestHeaders.get(name);
+            if (values != null) {
+                key.append(CachePolicy.SEPARATOR).append(name).append('=').append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+}
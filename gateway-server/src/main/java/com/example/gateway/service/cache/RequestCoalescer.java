@@ -0,0 +1,73 @@
+package com.example.gateway.service.cache;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.service.RouteTable;
+import com.example.gateway.service.RouteTableListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight stage for routes with a {@link CoalescePolicy}. The shared response is buffered once, up to
+ * {@code gateway.cache.coalesce-max-body-bytes}, and every waiter writes a view of the same buffer; larger
+ * responses make each waiter fall back to its own streamed call, and their keys skip this stage for a while.
+ */
+@Component
+public class RequestCoalescer implements RouteTableListener {
+    private static final Duration OVERSIZED_TTL = Duration.ofMinutes(1);
+
+    private final SingleFlight<CachedResponse> flight = new SingleFlight<>();
+    private final Cache<String, Boolean> oversized;
+    private final long maxBodyBytes;
+
+    public RequestCoalescer(GatewayProperties properties) {
+        this.maxBodyBytes = properties.getCache().getCoalesceMaxBodyBytes();
+        this.oversized = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMaxOversizedKeys())
+                .expireAfterWrite(OVERSIZED_TTL)
+                .build();
+    }
+
+    @Override
+    public void onPublish(RouteTable table) {
+        Set<String> live = new HashSet<>();
+        for (int i = 0; i < table.size(); i++) {
+            if (table.route(i).coalesce() != null) {
+                live.add(table.route(i).coalesce().routeId());
+            }
+        }
+        flight.retainGroups(live);
+    }
+
+    public Mono<CachedResponse> execute(CoalescePolicy policy, String key, Supplier<Mono<CachedResponse>> call) {
+        return flight.run(policy.routeId(), key, call, CachedResponse::shared, response -> {
+        });
+    }
+
+    public long maxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public boolean isOversized(String key) {
+        return oversized.getIfPresent(key) != null;
+    }
+
+    public void markOversized(String key) {
+        oversized.put(key, Boolean.TRUE);
+    }
+
+    public CoalesceView stats() {
+        return new CoalesceView(flight.inFlight(), flight.joined(), oversized.estimatedSize(),
+                flight.joinedByGroup());
+    }
+
+    public record CoalesceView(int inFlight, long coalesced, long oversizedKeys, Map<String, Long> routes) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.gateway.service.cache;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.service.CompiledRoute;
+import com.example.gateway.service.RouteTable;
+import com.example.gateway.service.RouteTableListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Responses of cached routes in a Caffeine (W-TinyLFU) cache bounded by total bytes, with a per-entry
+ * expiry taken from the route policy and upstream {@code Cache-Control}. Concurrent misses for one key share a
+ * single upstream fetch through {@link SingleFlight}. Entries of a route are dropped as soon as a publish
+ * replaces or removes its rule.
+ */
+@Component
+public class ResponseCache implements RouteTableListener {
+    private static final Duration OVERSIZED_TTL = Duration.ofMinutes(1);
+
+    private final Cache<String, CachedResponse> entries;
+    private final Cache<String, Boolean> oversized;
+    private final SingleFlight<CachedResponse> flight = new SingleFlight<>();
+    private final long maxBytes;
+    private volatile Map<String, CachePolicy> policies = Map.of();
+
+    public ResponseCache(GatewayProperties properties) {
+        this.maxBytes = properties.getCache().getMaxBytes();
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) -> response.weight(key))
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        this.oversized = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMaxOversizedKeys())
+                .expireAfterWrite(OVERSIZED_TTL)
+                .build();
+    }
+
+    @Override
+    public void onPublish(RouteTable table) {
+        Map<String, CachePolicy> next = new HashMap<>();
+        for (int i = 0; i < table.size(); i++) {
+            CompiledRoute route = table.route(i);
+            if (route.cache() != null) {
+                next.put(route.cache().routeId(), route.cache());
+            }
+        }
+        Set<String> stale = new HashSet<>();
+        policies.forEach((routeId, policy) -> {
+            // unchanged rules keep their CompiledRoute, hence the identical policy instance
+            if (next.get(routeId) != policy) {
+                stale.add(routeId);
+            }
+        });
+        policies = next;
+        flight.retainGroups(next.keySet());
+        if (!stale.isEmpty()) {
+            entries.asMap().keySet().removeIf(key -> stale.contains(CachePolicy.routeOf(key)));
+            oversized.asMap().keySet().removeIf(key -> stale.contains(CachePolicy.routeOf(key)));
+        }
+    }
+
+    public CachedResponse get(String key) {
+        return entries.getIfPresent(key);
+    }
+
+    /**
+     * Keys whose last response exceeded the route's entry size; they are proxied without buffering for a while.
+     */
+    public boolean isOversized(String key) {
+        return oversized.getIfPresent(key) != null;
+    }
+
+    public void markOversized(String key) {
+        oversized.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * Fetches a missing response, joining a fetch already running for the same key. Responses that may not be
+     * shared are fetched again by each waiter instead of being handed over.
+     */
+    public Mono<CachedResponse> load(CachePolicy policy, String key, Supplier<Mono<CachedResponse>> fetch) {
+        return flight.run(policy.routeId(), key, fetch, CachedResponse::shared, response -> {
+            if (response.storable() && policies.get(policy.routeId()) == policy) {
+                entries.put(key, response);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+        oversized.invalidateAll();
+    }
+
+    public CacheView stats() {
+        CacheStats stats = entries.stats();
+        long weight = entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new CacheView(entries.estimatedSize(), weight, maxBytes, stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), flight.joined(), flight.inFlight(),
+                oversized.estimatedSize(), policies.size());
+    }
+
+    private static final class EntryExpiry implements Expiry<String, CachedResponse> {
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                      long currentDuration) {
+            return response.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    public record CacheView(long entries, long bytes, long maxBytes, long hits, long misses, double hitRate,
+                            long evictions, long coalesced, int inFlight, long oversizedKeys, int routes) {
+    }
+}
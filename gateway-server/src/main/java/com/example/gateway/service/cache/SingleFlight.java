@@ -0,0 +1,72 @@
+package com.example.gateway.service.cache;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight call among concurrent callers with the same key. The call runs detached from the
+ * caller that started it, so that caller going away does not cancel it for the others. Joins are counted per
+ * group (a route id).
+ */
+public final class SingleFlight<T> {
+    private final ConcurrentHashMap<String, Sinks.One<T>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> joined = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code call} unless a call for {@code key} is already running, in which case its result is reused
+     * if {@code shareable} accepts it and {@code call} runs again for this caller otherwise. {@code onResult}
+     * sees the result of every shared call before any caller does.
+     */
+    public Mono<T> run(String group, String key, Supplier<Mono<T>> call, Predicate<T> shareable,
+                       Consumer<T> onResult) {
+        Sinks.One<T> sink = Sinks.one();
+        Sinks.One<T> running = inFlight.putIfAbsent(key, sink);
+        if (running != null) {
+            joined.computeIfAbsent(group, id -> new LongAdder()).increment();
+            return running.asMono().flatMap(result -> shareable.test(result) ? Mono.just(result) : call.get());
+        }
+        call.get().subscribe(
+                result -> {
+                    onResult.accept(result);
+                    inFlight.remove(key, sink);
+                    sink.tryEmitValue(result);
+                },
+                error -> {
+                    inFlight.remove(key, sink);
+                    sink.tryEmitError(error);
+                },
+                () -> {
+                    if (inFlight.remove(key, sink)) {
+                        sink.tryEmitEmpty();
+                    }
+                });
+        return sink.asMono();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public long joined() {
+        return joined.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public Map<String, Long> joinedByGroup() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        joined.forEach((group, count) -> counts.put(group, count.sum()));
+        return counts;
+    }
+
+    public void retainGroups(Set<String> groups) {
+        joined.keySet().retainAll(groups);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.gateway.service.compression;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Gzips the body written through it when the response qualifies: a {@code 200}-class status other than
+ * {@code 204} and {@code 206}, no {@code Content-Encoding} from upstream, a {@code Content-Type} on the route's
+ * list, a declared length of at least the route's threshold (unknown lengths qualify) and no
+ * {@code Cache-Control: no-transform}. Compressed responses lose {@code Content-Length} and get a weak ETag,
+ * since the bytes no longer match the upstream's validator. {@code Vary: Accept-Encoding} is added to every
+ * response of a compressible type, whether or not this client accepted gzip.
+ */
+public final class CompressingResponse extends ServerHttpResponseDecorator {
+    private final CompressionPolicy policy;
+    private final boolean accepted;
+
+    public CompressingResponse(ServerHttpResponse delegate, CompressionPolicy policy, boolean accepted) {
+        super(delegate);
+        this.policy = policy;
+        this.accepted = accepted;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (!prepare()) {
+            return super.writeWith(body);
+        }
+        return super.writeWith(Gzip.compress(body, bufferFactory(), policy.level()));
+    }
+
+    private boolean prepare() {
+        HttpHeaders headers = getHeaders();
+        HttpStatusCode status = getStatusCode();
+        if (status != null && (!status.is2xxSuccessful() || status == HttpStatus.NO_CONTENT
+                || status == HttpStatus.PARTIAL_CONTENT)) {
+            return false;
+        }
+        String encoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && !encoding.equalsIgnoreCase("identity")) {
+            return false;
+        }
+        MediaType contentType;
+        try {
+            contentType = headers.getContentType();
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+        if (!policy.covers(contentType)) {
+            return false;
+        }
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        long length = headers.getContentLength();
+        if (!accepted || (length >= 0 && length < policy.minBytes()) || noTransform(headers)) {
+            return false;
+        }
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.set(HttpHeaders.CONTENT_ENCODING, Gzip.CODING);
+        String etag = headers.getETag();
+        if (etag != null && !etag.startsWith("W/")) {
+            headers.setETag("W/" + etag);
+        }
+        return true;
+    }
+
+    private static boolean noTransform(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            if (value.toLowerCase(Locale.ROOT).contains("no-transform")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
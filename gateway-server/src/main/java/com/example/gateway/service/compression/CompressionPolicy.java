@@ -0,0 +1,50 @@
+package com.example.gateway.service.compression;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compression settings of one route ({@code "compression": true}). Responses are compressed when their
+ * {@code Content-Type} matches one of {@code types} and their length, if declared, is at least
+ * {@code minBytes}; the route's {@code compressionMinBytes} and {@code compressionTypes} override the
+ * {@code gateway.compression} defaults. Entries that are not valid media types are ignored.
+ */
+public record CompressionPolicy(int minBytes, List<MediaType> types, int level) {
+
+    public static CompressionPolicy from(RouteRule rule, GatewayProperties.Compression defaults) {
+        if (!Boolean.TRUE.equals(rule.getCompression())) {
+            return null;
+        }
+        Integer minBytes = rule.getCompressionMinBytes();
+        List<String> types = rule.getCompressionTypes() == null || rule.getCompressionTypes().isEmpty()
+                ? defaults.getTypes()
+                : rule.getCompressionTypes();
+        List<MediaType> parsed = new ArrayList<>();
+        for (String type : types) {
+            try {
+                parsed.add(MediaType.parseMediaType(type));
+            } catch (InvalidMediaTypeException ex) {
+                // an unparseable entry matches nothing
+            }
+        }
+        return new CompressionPolicy(minBytes == null || minBytes < 0 ? defaults.getMinBytes() : minBytes,
+                List.copyOf(parsed), defaults.getLevel());
+    }
+
+    public boolean covers(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType type : types) {
+            if (type.includes(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
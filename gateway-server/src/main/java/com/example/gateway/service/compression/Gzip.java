@@ -0,0 +1,151 @@
+package com.example.gateway.service.compression;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The {@code gzip} content coding, the only one the JDK can produce; {@code br} and {@code zstd} would need
+ * native encoders. The streaming form flushes after every input chunk, so a slowly streamed upstream body
+ * reaches the client without waiting for the encoder to fill a block.
+ */
+public final class Gzip {
+    public static final String CODING = "gzip";
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int CHUNK = 8192;
+
+    private Gzip() {
+    }
+
+    /**
+     * Whether {@code Accept-Encoding} admits gzip: listed, or covered by {@code *}, with a non-zero q-value.
+     */
+    public static boolean accepted(HttpHeaders requestHeaders) {
+        Boolean wildcard = null;
+        for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String part : value.split(",")) {
+                String[] params = part.split(";");
+                String coding = params[0].trim().toLowerCase(Locale.ROOT);
+                boolean allowed = quality(params) > 0;
+                if (coding.equals(CODING) || coding.equals("x-gzip")) {
+                    return allowed;
+                }
+                if (coding.equals("*")) {
+                    wildcard = allowed;
+                }
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public static byte[] compress(byte[] input, int level) {
+        Encoder encoder = new Encoder(level);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + HEADER.length + 8);
+            out.writeBytes(encoder.encode(input, Deflater.NO_FLUSH));
+            out.writeBytes(encoder.finish());
+            return out.toByteArray();
+        } finally {
+            encoder.end();
+        }
+    }
+
+    /**
+     * Compresses a body stream; input buffers are released as they are consumed.
+     */
+    public static Flux<DataBuffer> compress(Publisher<? extends DataBuffer> body, DataBufferFactory factory,
+                                            int level) {
+        return Flux.using(() -> new Encoder(level),
+                encoder -> Flux.<DataBuffer>from(body)
+                        .map(buffer -> {
+                            byte[] input = new byte[buffer.readableByteCount()];
+                            buffer.read(input);
+                            DataBufferUtils.release(buffer);
+                            return factory.wrap(encoder.encode(input, Deflater.SYNC_FLUSH));
+                        })
+                        .concatWith(Mono.fromSupplier(() -> factory.wrap(encoder.finish()))),
+                Encoder::end);
+    }
+
+    /**
+     * Raw deflate framed by hand as a gzip member (RFC 1952), so output can be taken after every chunk.
+     */
+    private static final class Encoder {
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] chunk = new byte[CHUNK];
+        private boolean headerWritten;
+        private long inputLength;
+
+        Encoder(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+        byte[] encode(byte[] input, int flush) {
+            crc.update(input);
+            inputLength += input.length;
+            deflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+            writeHeader(out);
+            int written;
+            do {
+                written = deflater.deflate(chunk, 0, chunk.length, flush);
+                out.write(chunk, 0, written);
+            } while (written == chunk.length || !deflater.needsInput());
+            return out.toByteArray();
+        }
+
+        byte[] finish() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            writeHeader(out);
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            writeInt(out, (int) crc.getValue());
+            writeInt(out, (int) inputLength);
+            return out.toByteArray();
+        }
+
+        void end() {
+            deflater.end();
+        }
+
+        private void writeHeader(ByteArrayOutputStream out) {
+            if (!headerWritten) {
+                out.writeBytes(HEADER);
+                headerWritten = true;
+            }
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, int value) {
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.compression.CompressingResponse;
+import com.example.gateway.service.compression.CompressionPolicy;
+import com.example.gateway.service.compression.Gzip;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rules with {@code "compression": true}: wraps the response so qualifying bodies are gzipped on the way out,
+ * see {@link CompressingResponse}.
+ */
+@Component
+public class CompressionFilterFactory implements GatewayFilterFactory {
+    private final GatewayProperties.Compression defaults;
+
+    public CompressionFilterFactory(GatewayProperties properties) {
+        this.defaults = properties.getCompression();
+    }
+
+    @Override
+    public int order() {
+        return COMPRESSION_ORDER;
+    }
+
+    @Override
+    public GatewayFilter create(RouteRule rule) {
+        CompressionPolicy policy = CompressionPolicy.from(rule, defaults);
+        if (policy == null) {
+            return null;
+        }
+        return new GatewayFilter() {
+            @Override
+            public Rejection pre(FilterContext context) {
+                if (context.request().getMethod() != HttpMethod.HEAD) {
+                    boolean accepted = Gzip.accepted(context.request().getHeaders());
+                    context.mutateResponse(response -> new CompressingResponse(response, policy, accepted));
+                }
+                return null;
+            }
+        };
+    }
+}
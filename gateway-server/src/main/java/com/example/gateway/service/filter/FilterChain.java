@@ -0,0 +1,61 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.model.RouteRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The filters of one route flattened into an array when the snapshot is published, in factory order. Routes
+ * without filters share {@link #EMPTY}.
+ */
+public final class FilterChain {
+    public static final FilterChain EMPTY = new FilterChain(new GatewayFilter[0]);
+
+    private final GatewayFilter[] filters;
+
+    private FilterChain(GatewayFilter[] filters) {
+        this.filters = filters;
+    }
+
+    /**
+     * {@code factories} must already be sorted by {@link GatewayFilterFactory#order()}.
+     */
+    public static FilterChain compile(RouteRule rule, List<GatewayFilterFactory> factories) {
+        List<GatewayFilter> filters = new ArrayList<>(factories.size());
+        for (GatewayFilterFactory factory : factories) {
+            GatewayFilter filter = factory.create(rule);
+            if (filter != null) {
+                filters.add(filter);
+            }
+        }
+        return filters.isEmpty() ? EMPTY : new FilterChain(filters.toArray(new GatewayFilter[0]));
+    }
+
+    public boolean isEmpty() {
+        return filters.length == 0;
+    }
+
+    public int size() {
+        return filters.length;
+    }
+
+    public Rejection pre(FilterContext context) {
+        for (GatewayFilter filter : filters) {
+            Rejection rejection = filter.pre(context);
+            if (rejection != null) {
+                return rejection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the post phase in reverse order, so the outermost filter sees the response last.
+     */
+    public void post(FilterContext context) {
+        for (int i = filters.length - 1; i >= 0; i--) {
+            filters[i].post(context);
+        }
+    }
+}
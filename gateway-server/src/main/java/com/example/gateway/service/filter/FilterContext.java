@@ -0,0 +1,48 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.service.CompiledRoute;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-request state handed to the filters of one route. Filters that change the request, or wrap the response,
+ * replace the exchange through {@link #mutateRequest}, {@link #decorateRequest} and {@link #mutateResponse};
+ * the proxy forwards whatever exchange the pre phase leaves behind.
+ */
+public final class FilterContext {
+    private final CompiledRoute route;
+    private ServerWebExchange exchange;
+
+    public FilterContext(ServerWebExchange exchange, CompiledRoute route) {
+        this.exchange = exchange;
+        this.route = route;
+    }
+
+    public ServerWebExchange exchange() {
+        return exchange;
+    }
+
+    public ServerHttpRequest request() {
+        return exchange.getRequest();
+    }
+
+    public CompiledRoute route() {
+        return route;
+    }
+
+    public void mutateRequest(Consumer<ServerHttpRequest.Builder> mutator) {
+        exchange = exchange.mutate().request(mutator).build();
+    }
+
+    public void decorateRequest(UnaryOperator<ServerHttpRequest> decorator) {
+        exchange = exchange.mutate().request(decorator.apply(exchange.getRequest())).build();
+    }
+
+    public void mutateResponse(UnaryOperator<ServerHttpResponse> decorator) {
+        exchange = exchange.mutate().response(decorator.apply(exchange.getResponse())).build();
+    }
+}
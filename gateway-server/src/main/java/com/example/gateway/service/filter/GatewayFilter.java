@@ -0,0 +1,20 @@
+package com.example.gateway.service.filter;
+
+/**
+ * One concern of one route, created by a {@link GatewayFilterFactory} when a snapshot is published. The pre
+ * phase runs before the upstream is called and may reject the request or mutate it; the post phase runs
+ * right before the response headers are committed, whether they come from the upstream, the response cache or
+ * an error response. A rejection in the pre phase skips the post phase of every filter.
+ */
+public interface GatewayFilter {
+
+    /**
+     * Returns a rejection to end the request, or {@code null} to continue.
+     */
+    default Rejection pre(FilterContext context) {
+        return null;
+    }
+
+    default void post(FilterContext context) {
+    }
+}
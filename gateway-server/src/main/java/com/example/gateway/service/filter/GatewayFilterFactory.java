@@ -0,0 +1,23 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.model.RouteRule;
+
+/**
+ * Filter SPI: every Spring bean implementing this is asked, for each rule of a published snapshot, for the
+ * {@link GatewayFilter} that rule needs. Factories run in ascending {@link #order()}; a rule that does not use
+ * a factory's concern gets no filter from it and pays nothing for it per request.
+ */
+public interface GatewayFilterFactory {
+    int AUTH_ORDER = 100;
+    int RATE_LIMIT_ORDER = 200;
+    int BODY_LIMIT_ORDER = 300;
+    int HEADERS_ORDER = 400;
+    int COMPRESSION_ORDER = 500;
+
+    int order();
+
+    /**
+     * Returns the filter for {@code rule}, or {@code null} when the rule does not use this concern.
+     */
+    GatewayFilter create(RouteRule rule);
+}
@@ -0,0 +1,69 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.model.RouteRule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rules with {@code requestHeaders} / {@code responseHeaders}: each entry sets a header on the forwarded request
+ * or on the response; an empty value removes it.
+ */
+@Component
+public class HeaderTransformFilterFactory implements GatewayFilterFactory {
+
+    @Override
+    public int order() {
+        return HEADERS_ORDER;
+    }
+
+    @Override
+    public GatewayFilter create(RouteRule rule) {
+        List<Map.Entry<String, String>> request = entries(rule.getRequestHeaders());
+        List<Map.Entry<String, String>> response = entries(rule.getResponseHeaders());
+        if (request.isEmpty() && response.isEmpty()) {
+            return null;
+        }
+        return new GatewayFilter() {
+            @Override
+            public Rejection pre(FilterContext context) {
+                if (!request.isEmpty()) {
+                    context.mutateRequest(builder -> builder.headers(headers -> apply(request, headers)));
+                }
+                return null;
+            }
+
+            @Override
+            public void post(FilterContext context) {
+                if (!response.isEmpty()) {
+                    apply(response, context.exchange().getResponse().getHeaders());
+                }
+            }
+        };
+    }
+
+    private static List<Map.Entry<String, String>> entries(Map<String, String> headers) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>();
+        if (headers != null) {
+            headers.forEach((name, value) -> {
+                if (name != null && !name.isBlank()) {
+                    entries.add(Map.entry(name.trim(), value == null ? "" : value));
+                }
+            });
+        }
+        return List.copyOf(entries);
+    }
+
+    private static void apply(List<Map.Entry<String, String>> transforms, HttpHeaders headers) {
+        for (Map.Entry<String, String> transform : transforms) {
+            if (transform.getValue().isEmpty()) {
+                headers.remove(transform.getKey());
+            } else {
+                headers.set(transform.getKey(), transform.getValue());
+            }
+        }
+    }
+}
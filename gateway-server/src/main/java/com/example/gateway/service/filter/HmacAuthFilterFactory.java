@@ -0,0 +1,174 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.auth.JwkSetRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * {@code authType: hmac}: the client signs {@code METHOD \n path[?query] \n X-Timestamp \n X-Content-SHA256}
+ * with HMAC-SHA256 under an {@code oct} key of the rule's {@code jwkSet}, named by {@code X-Key-Id}, and sends
+ * the base64 result in {@code X-Signature}. {@code X-Timestamp} (epoch seconds) must lie within
+ * {@code gateway.auth.hmac-max-skew-seconds} of now, and each (key id, timestamp, signature) is accepted once
+ * within that window; the seen tuples are kept in a cache bounded by {@code hmac-replay-cache-size}.
+ * {@code X-Content-SHA256} is the hex SHA-256 of the body, and a request without it must have an empty body. The
+ * body is hashed as it streams to the upstream and fails with {@link ContentDigestMismatchException} before its
+ * end when the digest differs, so the upstream never receives a complete unsigned body. The key id is forwarded
+ * as {@code X-Consumer-Id}.
+ */
+@Component
+public class HmacAuthFilterFactory implements GatewayFilterFactory {
+    static final String KEY_ID_HEADER = "X-Key-Id";
+    static final String TIMESTAMP_HEADER = "X-Timestamp";
+    static final String SIGNATURE_HEADER = "X-Signature";
+    static final String CONTENT_DIGEST_HEADER = "X-Content-SHA256";
+    private static final Rejection INVALID = new Rejection(HttpStatus.UNAUTHORIZED, "签名无效");
+    private static final Rejection REPLAYED = new Rejection(HttpStatus.UNAUTHORIZED, "签名已被使用");
+    private static final byte[] EMPTY_DIGEST = sha256().digest();
+
+    private final JwkSetRegistry jwkSets;
+    private final long maxSkewSeconds;
+    private final Cache<String, Boolean> seenSignatures;
+
+    public HmacAuthFilterFactory(JwkSetRegistry jwkSets, GatewayProperties properties) {
+        this.jwkSets = jwkSets;
+        this.maxSkewSeconds = properties.getAuth().getHmacMaxSkewSeconds();
+        // a timestamp stays acceptable for maxSkew on either side of now, so remember a tuple for twice that
+        this.seenSignatures = Caffeine.newBuilder()
+                .maximumSize(properties.getAuth().getHmacReplayCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1L, 2 * maxSkewSeconds)))
+                .build();
+    }
+
+    @Override
+    public int order() {
+        return AUTH_ORDER;
+    }
+
+    @Override
+    public GatewayFilter create(RouteRule rule) {
+        if (!"hmac".equalsIgnoreCase(rule.getAuthType())) {
+            return null;
+        }
+        String jwkSet = rule.getJwkSet();
+        return new GatewayFilter() {
+            @Override
+            public Rejection pre(FilterContext context) {
+                HttpHeaders headers = context.request().getHeaders();
+                String keyId = verify(jwkSet, context.request());
+                byte[] digest = keyId == null ? null : contentDigest(headers.getFirst(CONTENT_DIGEST_HEADER));
+                if (digest == null) {
+                    return INVALID;
+                }
+                String tuple = keyId + '\n' + headers.getFirst(TIMESTAMP_HEADER).trim() + '\n'
+                        + headers.getFirst(SIGNATURE_HEADER).trim();
+                if (seenSignatures.asMap().putIfAbsent(tuple, Boolean.TRUE) != null) {
+                    return REPLAYED;
+                }
+                context.mutateRequest(builder -> builder.headers(
+                        forwarded -> forwarded.set(ApiKeyAuthFilterFactory.CONSUMER_HEADER, keyId)));
+                context.decorateRequest(request -> new ServerHttpRequestDecorator(request) {
+                    @Override
+                    public Flux<DataBuffer> getBody() {
+                        return verifyDigest(super.getBody(), digest);
+                    }
+                });
+                return null;
+            }
+        };
+    }
+
+    private String verify(String jwkSet, ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String keyId = headers.getFirst(KEY_ID_HEADER);
+        String timestamp = headers.getFirst(TIMESTAMP_HEADER);
+        String signature = headers.getFirst(SIGNATURE_HEADER);
+        JwkSetRegistry.JwkSet set = jwkSets.get(jwkSet);
+        if (keyId == null || timestamp == null || signature == null || set == null) {
+            return null;
+        }
+        JwkSetRegistry.Jwk key = set.find(keyId, "HS256");
+        if (key == null) {
+            return null;
+        }
+        try {
+            long skew = Math.abs(System.currentTimeMillis() / 1000L - Long.parseLong(timestamp.trim()));
+            if (skew > maxSkewSeconds) {
+                return null;
+            }
+            String contentDigest = headers.getFirst(CONTENT_DIGEST_HEADER);
+            String query = request.getURI().getRawQuery();
+            String canonical = request.getMethod().name() + '\n'
+                    + request.getURI().getRawPath() + (query == null ? "" : "?" + query) + '\n'
+                    + timestamp.trim() + '\n'
+                    + (contentDigest == null ? "" : contentDigest.trim());
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key.key());
+            byte[] expected = mac.doFinal(canonical.getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(expected, Base64.getDecoder().decode(signature.trim())) ? keyId : null;
+        } catch (GeneralSecurityException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static byte[] contentDigest(String header) {
+        if (header == null) {
+            return EMPTY_DIGEST;
+        }
+        try {
+            byte[] digest = HexFormat.of().parseHex(header.trim());
+            return digest.length == EMPTY_DIGEST.length ? digest : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Passes the body through while hashing it; the last buffer is followed by an error instead of completion
+     * when the digest differs.
+     */
+    static Flux<DataBuffer> verifyDigest(Flux<DataBuffer> body, byte[] expected) {
+        return Flux.defer(() -> {
+            MessageDigest digest = sha256();
+            return body.doOnNext(buffer -> {
+                try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                    chunks.forEachRemaining(digest::update);
+                }
+            }).concatWith(Mono.defer(() -> MessageDigest.isEqual(digest.digest(), expected)
+                    ? Mono.empty()
+                    : Mono.error(new ContentDigestMismatchException())));
+        });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static class ContentDigestMismatchException extends RuntimeException {
+        public ContentDigestMismatchException() {
+            super("Request body does not match " + CONTENT_DIGEST_HEADER, null, false, false);
+        }
+    }
+}
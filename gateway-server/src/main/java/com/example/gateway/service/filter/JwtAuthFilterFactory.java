@@ -0,0 +1,82 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.auth.JwtVerifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code authType: jwt}: a {@code Bearer} token signed by a key of the rule's {@code jwkSet}, with the rule's
+ * {@code jwtIssuer} and {@code jwtAudience} when set. Claims listed in {@code claimHeaders} (claim to header;
+ * {@code sub} to {@code X-Consumer-Id} by default) are forwarded upstream, and client-sent values of those
+ * headers are dropped.
+ */
+@Component
+public class JwtAuthFilterFactory implements GatewayFilterFactory {
+    private static final String BEARER = "Bearer ";
+    private static final Rejection INVALID = new Rejection(HttpStatus.UNAUTHORIZED, "令牌无效");
+    private static final Map<String, String> DEFAULT_CLAIM_HEADERS =
+            Map.of("sub", ApiKeyAuthFilterFactory.CONSUMER_HEADER);
+
+    private final JwtVerifier verifier;
+
+    public JwtAuthFilterFactory(JwtVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @Override
+    public int order() {
+        return AUTH_ORDER;
+    }
+
+    @Override
+    public GatewayFilter create(RouteRule rule) {
+        if (!"jwt".equalsIgnoreCase(rule.getAuthType())) {
+            return null;
+        }
+        String jwkSet = rule.getJwkSet();
+        String issuer = rule.getJwtIssuer();
+        String audience = rule.getJwtAudience();
+        List<Map.Entry<String, String>> claimHeaders = claimHeaders(rule.getClaimHeaders());
+        return new GatewayFilter() {
+            @Override
+            public Rejection pre(FilterContext context) {
+                String authorization = context.request().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+                if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+                    return INVALID;
+                }
+                JwtVerifier.VerifiedToken token =
+                        verifier.verify(jwkSet, authorization.substring(BEARER.length()).trim());
+                if (token == null || (issuer != null && !issuer.equals(token.claim("iss")))
+                        || (audience != null && !token.hasAudience(audience))) {
+                    return INVALID;
+                }
+                context.mutateRequest(builder -> builder.headers(headers -> {
+                    for (Map.Entry<String, String> mapping : claimHeaders) {
+                        headers.remove(mapping.getValue());
+                        String value = token.claim(mapping.getKey());
+                        if (value != null) {
+                            headers.set(mapping.getValue(), value);
+                        }
+                    }
+                }));
+                return null;
+            }
+        };
+    }
+
+    static List<Map.Entry<String, String>> claimHeaders(Map<String, String> configured) {
+        List<Map.Entry<String, String>> mappings = new ArrayList<>();
+        (configured == null || configured.isEmpty() ? DEFAULT_CLAIM_HEADERS : configured).forEach((claim, header) -> {
+            if (claim != null && header != null && !header.isBlank()) {
+                mappings.add(Map.entry(claim, header.trim()));
+            }
+        });
+        return List.copyOf(mappings);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.gateway.service.filter;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.service.ratelimit.RateLimitPolicy;
+import com.example.gateway.service.ratelimit.RateLimiter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Rules with {@code rateLimitQps > 0}: one token per request from the bucket of the route, API key or client IP.
+ */
+@Component
+public class RateLimitFilterFactory implements GatewayFilterFactory {
+    private static final Rejection LIMITED = new Rejection(HttpStatus.TOO_MANY_REQUESTS, "触发限流");
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilterFactory(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public int order() {
+        return RATE_LIMIT_ORDER;
+    }
+
+    @Override
+    public GatewayFilter create(RouteRule rule) {
+        RateLimitPolicy policy = RateLimitPolicy.from(rule);
+        if (policy == null) {
+            return null;
+        }
+        String routeId = rule.getId();
+        return new GatewayFilter() {
+            @Override
+            public Rejection pre(FilterContext context) {
+                return rateLimiter.tryAcquire(routeId, resolveConsumer(policy, context.request()), policy)
+                        ? null
+                        : LIMITED;
+            }
+        };
+    }
+
+    private static String resolveConsumer(RateLimitPolicy policy, ServerHttpRequest request) {
+        switch (policy.keyType()) {
+            case API_KEY:
+                String apiKey = request.getHeaders().getFirst(ApiKeyAuthFilterFactory.HEADER);
+                return apiKey == null ? "" : apiKey;
+            case IP:
+                InetSocketAddress remote = request.getRemoteAddress();
+                return remote == null || remote.getAddress() == null ? "" : remote.getAddress().getHostAddress();
+            default:
+                return "";
+        }
+    }
+}
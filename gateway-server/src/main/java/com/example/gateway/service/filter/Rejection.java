@@ -0,0 +1,13 @@
+package com.example.gateway.service.filter;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Ends a request in the pre phase with {@code status} and a JSON {@code {"error": message}} body.
+ */
+public record Rejection(HttpStatus status, String message) {
+
+    public String body() {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+}
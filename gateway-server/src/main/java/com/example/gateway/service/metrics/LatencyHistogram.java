@@ -0,0 +1,94 @@
+package com.example.gateway.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram in the spirit of HdrHistogram: values (microseconds) are bucketed by
+ * power of two with 8 linear sub-buckets each, which keeps the relative error under 12.5% up to ~67s.
+ * Larger values land in the last bucket.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 26;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long micros) {
+        counts.incrementAndGet(indexOf(micros));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+    }
+
+    void addTo(long[] target) {
+        for (int i = 0; i < BUCKETS; i++) {
+            target[i] += counts.get(i);
+        }
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) Math.max(0L, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * Midpoint of the bucket, in microseconds.
+     */
+    static long valueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        long lower = (1L << exponent) + sub * width;
+        return lower + width / 2;
+    }
+
+    /**
+     * Returns the value at each requested quantile (0..1) of this histogram, in microseconds.
+     */
+    public long[] percentiles(double... quantiles) {
+        long[] merged = new long[BUCKETS];
+        addTo(merged);
+        return quantiles(merged, quantiles);
+    }
+
+    /**
+     * Returns the value at each requested quantile of the merged bucket counts, in microseconds.
+     */
+    static long[] quantiles(long[] merged, double... quantiles) {
+        long total = 0L;
+        for (long count : merged) {
+            total += count;
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0L) {
+            return values;
+        }
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1L, (long) Math.ceil(quantiles[q] * total));
+            long seen = 0L;
+            for (int i = 0; i < merged.length; i++) {
+                seen += merged[i];
+                if (seen >= rank) {
+                    values[q] = valueOf(i);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.gateway.service.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one route. Lifetime totals are striped {@link LongAdder}s; the sliding windows are a ring of
+ * two-second slots and a pair of 30-second latency histograms, created on the first recorded request so
+ * idle routes in large snapshots only cost the adders. The slot counters are striped the same way, but only
+ * once a CAS on them fails, so routes without contention keep a single copy. The time of the last hit is read
+ * back from the newest slot instead of being written per request. The metrics of a traffic-split variant have
+ * the route's metrics as parent and record into both, so the route's figures still cover all of its traffic.
+ */
+public final class RouteMetrics {
+    static final int REQUESTS = 0;
+    static final int STATUS_2XX = 1;
+    static final int STATUS_4XX = 2;
+    static final int STATUS_5XX = 3;
+    static final int STATUS_429 = 4;
+    static final int STATUS_504 = 5;
+    static final int BYTES_IN = 6;
+    static final int BYTES_OUT = 7;
+    static final int COUNTERS = 8;
+
+    static final long SLOT_MS = 2000L;
+    static final int SLOTS = 32;
+    static final long HISTOGRAM_SLICE_MS = 30000L;
+    static final long P95_REFRESH_MS = 1000L;
+    static final long P95_MIN_SAMPLES = 20L;
+    static final int MAX_STRIPES =
+            Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder[] totals = new LongAdder[COUNTERS];
+    private final AtomicReference<Windows> windows = new AtomicReference<>();
+    private final RouteMetrics parent;
+    private volatile long p95Micros;
+    private volatile long p95At;
+
+    public RouteMetrics() {
+        this(null);
+    }
+
+    public RouteMetrics(RouteMetrics parent) {
+        this.parent = parent;
+        for (int i = 0; i < COUNTERS; i++) {
+            totals[i] = new LongAdder();
+        }
+    }
+
+    public RouteMetrics parent() {
+        return parent;
+    }
+
+    public void recordHit() {
+        hits.increment();
+        windows().slot(System.currentTimeMillis());
+        if (parent != null) {
+            parent.recordHit();
+        }
+    }
+
+    public void recordStatus(int status) {
+        long now = System.currentTimeMillis();
+        Windows current = windows();
+        add(current, now, REQUESTS, 1L);
+        if (status >= 200 && status < 300) {
+            add(current, now, STATUS_2XX, 1L);
+        } else if (status >= 400 && status < 500) {
+            add(current, now, STATUS_4XX, 1L);
+            if (status == 429) {
+                add(current, now, STATUS_429, 1L);
+            }
+        } else if (status >= 500) {
+            add(current, now, STATUS_5XX, 1L);
+            if (status == 504) {
+                add(current, now, STATUS_504, 1L);
+            }
+        }
+        if (parent != null) {
+            parent.recordStatus(status);
+        }
+    }
+
+    public void recordBytesIn(long bytes) {
+        add(windows(), System.currentTimeMillis(), BYTES_IN, bytes);
+        if (parent != null) {
+            parent.recordBytesIn(bytes);
+        }
+    }
+
+    public void recordBytesOut(long bytes) {
+        add(windows(), System.currentTimeMillis(), BYTES_OUT, bytes);
+        if (parent != null) {
+            parent.recordBytesOut(bytes);
+        }
+    }
+
+    public void recordLatency(long nanos) {
+        windows().histogram(System.currentTimeMillis()).record(nanos / 1000L);
+        if (parent != null) {
+            parent.recordLatency(nanos);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Start of the newest two-second slot that saw a hit, in epoch milliseconds, or zero before the first hit.
+     */
+    public long lastHit() {
+        Windows current = windows.get();
+        if (current == null) {
+            return 0L;
+        }
+        long newest = -1L;
+        for (int i = 0; i < SLOTS; i++) {
+            newest = Math.max(newest, current.epochs.get(i));
+        }
+        return newest < 0 ? 0L : newest * SLOT_MS;
+    }
+
+    public long total(int counter) {
+        return totals[counter].sum();
+    }
+
+    /**
+     * The p95 of upstream latency over the recent histogram slices, in microseconds, or zero while they hold
+     * fewer than {@value #P95_MIN_SAMPLES} samples. Recomputed at most once a second, so it is cheap enough to
+     * read per request.
+     */
+    public long recentP95Micros() {
+        long now = System.currentTimeMillis();
+        if (now - p95At >= P95_REFRESH_MS) {
+            p95At = now;
+            long[] buckets = latencyBuckets(now);
+            long samples = 0L;
+            for (long count : buckets) {
+                samples += count;
+            }
+            p95Micros = samples < P95_MIN_SAMPLES ? 0L : LatencyHistogram.quantiles(buckets, 0.95)[0];
+        }
+        return p95Micros;
+    }
+
+    /**
+     * Sums the counters of the last {@code seconds} worth of completed slots.
+     */
+    long[] window(long nowMs, int seconds) {
+        long[] sums = new long[COUNTERS];
+        Windows current = windows.get();
+        if (current == null) {
+            return sums;
+        }
+        long currentSlot = nowMs / SLOT_MS;
+        int slots = windowSlots(seconds);
+        for (long slot = currentSlot - slots; slot < currentSlot; slot++) {
+            int index = (int) (slot & (SLOTS - 1));
+            if (current.epochs.get(index) != slot) {
+                continue;
+            }
+            for (int c = 0; c < COUNTERS; c++) {
+                sums[c] += current.sum(index * COUNTERS + c);
+            }
+        }
+        return sums;
+    }
+
+    static int windowSlots(int seconds) {
+        return (int) Math.min(SLOTS - 1, Math.max(1, seconds * 1000L / SLOT_MS));
+    }
+
+    long[] latencyBuckets(long nowMs) {
+        long[] merged = new long[LatencyHistogram.BUCKETS];
+        Windows current = windows.get();
+        if (current == null) {
+            return merged;
+        }
+        long slice = nowMs / HISTOGRAM_SLICE_MS;
+        for (int i = 0; i < current.histograms.length; i++) {
+            long epoch = current.histogramEpochs.get(i);
+            if (epoch == slice || epoch == slice - 1) {
+                current.histograms[i].addTo(merged);
+            }
+        }
+        return merged;
+    }
+
+    private void add(Windows current, long nowMs, int counter, long delta) {
+        totals[counter].add(delta);
+        current.add(current.slot(nowMs) * COUNTERS + counter, delta);
+    }
+
+    private Windows windows() {
+        Windows current = windows.get();
+        if (current == null) {
+            windows.compareAndSet(null, new Windows());
+            current = windows.get();
+        }
+        return current;
+    }
+
+    /**
+     * Ring buffers keyed by epoch. The thread that moves a slot to a new epoch clears it; increments racing
+     * with that reset may be lost, which only affects the boundary of one slot. Counts live in one or more
+     * stripes picked by thread id; a failed CAS doubles the stripes, up to {@link #MAX_STRIPES}.
+     */
+    private static final class Windows {
+        private final AtomicLongArray epochs = new AtomicLongArray(SLOTS);
+        private final AtomicReference<AtomicLongArray[]> stripes =
+                new AtomicReference<>(new AtomicLongArray[] {new AtomicLongArray(SLOTS * COUNTERS)});
+        private final AtomicLongArray histogramEpochs = new AtomicLongArray(2);
+        private final LatencyHistogram[] histograms = {new LatencyHistogram(), new LatencyHistogram()};
+
+        private Windows() {
+            for (int i = 0; i < SLOTS; i++) {
+                epochs.set(i, -1L);
+            }
+            histogramEpochs.set(0, -1L);
+            histogramEpochs.set(1, -1L);
+        }
+
+        private int slot(long nowMs) {
+            long slot = nowMs / SLOT_MS;
+            int index = (int) (slot & (SLOTS - 1));
+            long epoch = epochs.get(index);
+            if (epoch != slot && epochs.compareAndSet(index, epoch, slot)) {
+                for (AtomicLongArray stripe : stripes.get()) {
+                    for (int c = 0; c < COUNTERS; c++) {
+                        stripe.set(index * COUNTERS + c, 0L);
+                    }
+                }
+            }
+            return index;
+        }
+
+        private void add(int cell, long delta) {
+            AtomicLongArray[] current = stripes.get();
+            AtomicLongArray stripe = current[(int) Thread.currentThread().getId() & (current.length - 1)];
+            long value = stripe.get(cell);
+            if (!stripe.compareAndSet(cell, value, value + delta)) {
+                stripe.getAndAdd(cell, delta);
+                if (current.length < MAX_STRIPES) {
+                    AtomicLongArray[] grown = Arrays.copyOf(current, current.length * 2);
+                    for (int i = current.length; i < grown.length; i++) {
+                        grown[i] = new AtomicLongArray(SLOTS * COUNTERS);
+                    }
+                    stripes.compareAndSet(current, grown);
+                }
+            }
+        }
+
+        private long sum(int cell) {
+            long sum = 0L;
+            for (AtomicLongArray stripe : stripes.get()) {
+                sum += stripe.get(cell);
+            }
+            return sum;
+        }
+
+        private LatencyHistogram histogram(long nowMs) {
+            long slice = nowMs / HISTOGRAM_SLICE_MS;
+            int index = (int) (slice & 1);
+            long epoch = histogramEpochs.get(index);
+            if (epoch != slice && histogramEpochs.compareAndSet(index, epoch, slice)) {
+                histograms[index].reset();
+            }
+            return histograms[index];
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.gateway.service.metrics;
+
+/**
+ * Turns the raw ring buffers of a {@link RouteMetrics} into per-second rates and latency percentiles.
+ */
+public final class RouteMetricsWindow {
+    private RouteMetricsWindow() {
+    }
+
+    public static WindowView window(RouteMetrics metrics, long nowMs, int seconds) {
+        long[] sums = metrics.window(nowMs, seconds);
+        double span = RouteMetrics.windowSlots(seconds) * RouteMetrics.SLOT_MS / 1000.0;
+        long requests = sums[RouteMetrics.REQUESTS];
+        return new WindowView(
+                seconds + "s",
+                rate(requests, span),
+                rate(sums[RouteMetrics.STATUS_2XX], span),
+                rate(sums[RouteMetrics.STATUS_4XX], span),
+                rate(sums[RouteMetrics.STATUS_5XX], span),
+                rate(sums[RouteMetrics.STATUS_429], span),
+                rate(sums[RouteMetrics.STATUS_504], span),
+                requests == 0 ? 0.0 : round((double) sums[RouteMetrics.STATUS_5XX] / requests),
+                rate(sums[RouteMetrics.BYTES_IN], span),
+                rate(sums[RouteMetrics.BYTES_OUT], span)
+        );
+    }
+
+    public static LatencyView latency(RouteMetrics metrics, long nowMs) {
+        long[] buckets = metrics.latencyBuckets(nowMs);
+        long samples = 0L;
+        for (long count : buckets) {
+            samples += count;
+        }
+        long[] values = LatencyHistogram.quantiles(buckets, 0.5, 0.99, 0.999);
+        return new LatencyView(samples, millis(values[0]), millis(values[1]), millis(values[2]));
+    }
+
+    private static double rate(long count, double seconds) {
+        return round(count / seconds);
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    public record WindowView(String window, double requestsPerSec, double status2xxPerSec, double status4xxPerSec,
+                             double status5xxPerSec, double status429PerSec, double status504PerSec,
+                             double errorRate, double bytesInPerSec, double bytesOutPerSec) {
+    }
+
+    public record LatencyView(long samples, double p50Ms, double p99Ms, double p999Ms) {
+    }
+}
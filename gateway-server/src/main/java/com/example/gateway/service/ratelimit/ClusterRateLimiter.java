@@ -0,0 +1,213 @@
+package com.example.gateway.service.ratelimit;
+
+import com.example.gateway.config.GatewayProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The gateway's {@link RateLimiter}. In {@code local} mode it is the node's own {@link TokenBucketRateLimiter}.
+ * In {@code cluster} mode each route and consumer draws from one cluster-wide bucket held by the
+ * {@link RateLimitCoordinator}: a node leases enough tokens for {@code lease-ms} of the route's rate and spends
+ * them without coordination. The next lease is requested in the background once a quarter of the tokens or of
+ * the lease period is left, so a request only ever takes a token with a CAS and never waits for the
+ * coordinator; when a bucket has no tokens while its renewal is in flight, as on first use, the request is
+ * decided on the node's share of the route ({@code rateLimitQps / cluster-nodes}). When the coordinator fails
+ * or does not answer within {@code lease-timeout-ms}, the node limits locally to that share and retries the
+ * coordinator after {@code coordinator-retry-ms}.
+ */
+@Primary
+@Component
+public class ClusterRateLimiter implements RateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    private final TokenBucketRateLimiter local;
+    private final RateLimitCoordinator coordinator;
+    private final boolean cluster;
+    private final String nodeId;
+    private final long leaseNanos;
+    private final int clusterNodes;
+    private final long retryNanos;
+    private final Duration leaseTimeout;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LeaseBucket>> leases =
+            new ConcurrentHashMap<>();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder leaseCalls = new LongAdder();
+    private final LongAdder tokensLeased = new LongAdder();
+    private final LongAdder emptyLeases = new LongAdder();
+    private final LongAdder fallbackDecisions = new LongAdder();
+    private final LongAdder pendingDecisions = new LongAdder();
+    private final LongAdder coordinatorErrors = new LongAdder();
+    private volatile long coordinatorDownUntil;
+    private volatile boolean coordinatorDown;
+
+    public ClusterRateLimiter(GatewayProperties properties, TokenBucketRateLimiter local,
+                              List<RateLimitCoordinator> coordinators) {
+        GatewayProperties.RateLimit config = properties.getRateLimit();
+        this.local = local;
+        this.cluster = "cluster".equalsIgnoreCase(config.getMode());
+        this.coordinator = coordinators.stream()
+                .filter(candidate -> candidate.name().equalsIgnoreCase(config.getCoordinator()))
+                .findFirst()
+                .orElse(null);
+        if (cluster && coordinator == null) {
+            throw new IllegalStateException("Unknown rate limit coordinator: " + config.getCoordinator());
+        }
+        this.nodeId = config.getNodeId() == null || config.getNodeId().isBlank()
+                ? defaultNodeId()
+                : config.getNodeId();
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, config.getLeaseMs()));
+        this.clusterNodes = Math.max(1, config.getClusterNodes());
+        this.retryNanos = TimeUnit.MILLISECONDS.toNanos(config.getCoordinatorRetryMs());
+        this.leaseTimeout = Duration.ofMillis(Math.max(1L, config.getLeaseTimeoutMs()));
+    }
+
+    @Override
+    public boolean tryAcquire(String routeId, String consumer, RateLimitPolicy policy) {
+        if (!cluster) {
+            return local.tryAcquire(routeId, consumer, policy);
+        }
+        long now = System.nanoTime();
+        if (coordinatorDown) {
+            if (now - coordinatorDownUntil < 0) {
+                fallbackDecisions.increment();
+                return local.tryAcquire(routeId, consumer, policy.share(clusterNodes));
+            }
+            coordinatorDown = false;
+        }
+        ConcurrentHashMap<String, LeaseBucket> routeLeases = leases.get(routeId);
+        if (routeLeases == null) {
+            routeLeases = leases.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+        }
+        LeaseBucket bucket = routeLeases.get(consumer);
+        if (bucket == null) {
+            bucket = routeLeases.computeIfAbsent(consumer, key -> new LeaseBucket(now));
+        }
+        long left = bucket.take(now);
+        if (left >= 0) {
+            localHits.increment();
+            if (bucket.low(left, leaseSize(policy) / 4, now, leaseNanos)) {
+                renew(routeId, consumer, policy, bucket);
+            }
+            return true;
+        }
+        if (bucket.waiting(now)) {
+            return false;
+        }
+        renew(routeId, consumer, policy, bucket);
+        if (bucket.take(now) >= 0) {
+            return true;
+        }
+        if (bucket.waiting(now)) {
+            return false;
+        }
+        if (coordinatorDown) {
+            fallbackDecisions.increment();
+        } else {
+            pendingDecisions.increment();
+        }
+        return local.tryAcquire(routeId, consumer, policy.share(clusterNodes));
+    }
+
+    /**
+     * Starts a lease request unless one is already in flight for the bucket. A coordinator that answers at once
+     * has installed the grant by the time this returns.
+     */
+    private void renew(String routeId, String consumer, RateLimitPolicy policy, LeaseBucket bucket) {
+        if (!bucket.startRenewal()) {
+            return;
+        }
+        leaseCalls.increment();
+        Mono<Integer> lease;
+        try {
+            lease = coordinator.lease(nodeId, routeId + '\n' + consumer, policy, leaseSize(policy));
+        } catch (RuntimeException ex) {
+            lease = Mono.error(ex);
+        }
+        lease.timeout(leaseTimeout)
+                .doFinally(signal -> bucket.endRenewal())
+                .subscribe(granted -> granted(policy, bucket, granted), this::coordinatorFailed);
+    }
+
+    private void granted(RateLimitPolicy policy, LeaseBucket bucket, int granted) {
+        long now = System.nanoTime();
+        if (granted <= 0) {
+            emptyLeases.increment();
+            bucket.retryAfter(now + policy.intervalNanos());
+            return;
+        }
+        tokensLeased.add(granted);
+        bucket.grant(granted, now, now + leaseNanos);
+    }
+
+    private void coordinatorFailed(Throwable error) {
+        coordinatorErrors.increment();
+        coordinatorDownUntil = System.nanoTime() + retryNanos;
+        coordinatorDown = true;
+        log.warn("Rate limit coordinator {} unavailable, limiting locally for {} ms: {}",
+                coordinator.name(), TimeUnit.NANOSECONDS.toMillis(retryNanos), error.toString());
+    }
+
+    /**
+     * Enough tokens for one lease period at the route's rate, within the bucket's burst.
+     */
+    private int leaseSize(RateLimitPolicy policy) {
+        long perLease = (policy.permitsPerSecond() * leaseNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1);
+        return (int) Math.max(1L, Math.min(policy.burst(), perLease));
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        leases.forEach((routeId, routeLeases) -> {
+            routeLeases.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+            if (routeLeases.isEmpty()) {
+                leases.remove(routeId, routeLeases);
+            }
+        });
+    }
+
+    public LeaseStats stats() {
+        long hits = localHits.sum();
+        long calls = leaseCalls.sum();
+        return new LeaseStats(cluster ? "cluster" : "local", nodeId,
+                coordinator == null ? null : coordinator.name(),
+                !coordinatorDown || System.nanoTime() - coordinatorDownUntil >= 0,
+                hits, calls, tokensLeased.sum(), emptyLeases.sum(), fallbackDecisions.sum(),
+                pendingDecisions.sum(), coordinatorErrors.sum(),
+                hits + calls == 0 ? 0.0 : (double) hits / (hits + calls),
+                leases.values().stream().mapToInt(ConcurrentHashMap::size).sum(), local.bucketCount());
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "localhost";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * {@code leaseHitRate} relates decisions taken from a held lease to lease requests; {@code pendingDecisions}
+     * counts requests decided on the node's share while their bucket waited for a renewal.
+     */
+    public record LeaseStats(String mode, String nodeId, String coordinator, boolean coordinatorAvailable,
+                             long localHits, long leaseCalls, long tokensLeased, long emptyLeases,
+                             long fallbackDecisions, long pendingDecisions, long coordinatorErrors,
+                             double leaseHitRate, int leaseBuckets, int localBuckets) {
+    }
+}
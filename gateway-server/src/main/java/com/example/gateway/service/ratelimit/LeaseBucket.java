@@ -0,0 +1,80 @@
+package com.example.gateway.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tokens one node has leased for one bucket key. Spending a token is a CAS on the remaining count; renewals run
+ * in the background, at most one at a time, and add their grant to the tokens still left. Unspent tokens lapse
+ * at {@code expiresAt} so an idle node cannot save a lease and spend it on top of a later one. After an empty
+ * grant, {@code retryAt} holds the earliest time the cluster bucket can have a token again, and requests until
+ * then are refused locally.
+ */
+final class LeaseBucket {
+    private final AtomicLong remaining = new AtomicLong();
+    private final AtomicBoolean renewing = new AtomicBoolean();
+    private volatile long expiresAt;
+    private volatile long retryAt;
+
+    LeaseBucket(long nowNanos) {
+        this.expiresAt = nowNanos;
+        this.retryAt = nowNanos;
+    }
+
+    /**
+     * Spends one token; returns the tokens left after it, or {@code -1} when the lease is empty or expired.
+     */
+    long take(long nowNanos) {
+        if (nowNanos - expiresAt >= 0) {
+            return -1L;
+        }
+        while (true) {
+            long current = remaining.get();
+            if (current <= 0) {
+                return -1L;
+            }
+            if (remaining.compareAndSet(current, current - 1)) {
+                return current - 1;
+            }
+        }
+    }
+
+    /**
+     * Whether the lease should be renewed ahead of time: few tokens left, or less than a quarter of it to run.
+     */
+    boolean low(long left, long lowWater, long nowNanos, long leaseNanos) {
+        return left <= lowWater || expiresAt - nowNanos < leaseNanos / 4;
+    }
+
+    boolean waiting(long nowNanos) {
+        return nowNanos - retryAt < 0;
+    }
+
+    boolean startRenewal() {
+        return !renewing.get() && renewing.compareAndSet(false, true);
+    }
+
+    void endRenewal() {
+        renewing.set(false);
+    }
+
+    /**
+     * Installs a renewal; tokens of a lease that has already lapsed are dropped rather than carried over.
+     */
+    void grant(long tokens, long nowNanos, long expiresAt) {
+        if (nowNanos - this.expiresAt >= 0) {
+            remaining.set(tokens);
+        } else {
+            remaining.addAndGet(tokens);
+        }
+        this.expiresAt = expiresAt;
+    }
+
+    void retryAfter(long retryAt) {
+        this.retryAt = retryAt;
+    }
+
+    boolean isIdle(long nowNanos) {
+        return nowNanos - expiresAt >= 0 && !waiting(nowNanos) && !renewing.get();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.gateway.service.ratelimit;
+
+import com.example.gateway.config.GatewayProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process coordinator: the cluster-wide buckets live in this JVM. It serves a single gateway, or several
+ * {@link ClusterRateLimiter} instances sharing it in one process, and {@link #setAvailable} simulates an outage.
+ */
+@Component
+public class LoopbackRateLimitCoordinator implements RateLimitCoordinator {
+    public static final String NAME = "loopback";
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final long idleNanos;
+    private volatile boolean available = true;
+
+    public LoopbackRateLimitCoordinator(GatewayProperties properties) {
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getRateLimit().getBucketIdleMs());
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<Integer> lease(String nodeId, String bucketKey, RateLimitPolicy policy, int requested) {
+        if (!available) {
+            return Mono.error(new CoordinatorUnavailableException("loopback coordinator disabled", null));
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(bucketKey, key -> new TokenBucket(now));
+        return Mono.just(bucket.take(now, policy.intervalNanos(), policy.burstNanos(), requested));
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleNanos));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.gateway.service.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Shared token source for {@code gateway.rate-limit.mode: cluster}. Each bucket key holds one cluster-wide token
+ * bucket sized by the route's policy; gateways take tokens from it in batches and spend them locally. The
+ * implementation is picked by {@link #name()} from {@code gateway.rate-limit.coordinator}.
+ */
+public interface RateLimitCoordinator {
+
+    String name();
+
+    /**
+     * Takes up to {@code requested} tokens from the bucket behind {@code bucketKey}. The limiter subscribes from
+     * the request's thread, usually an event loop, ahead of its current lease running out, so implementations
+     * must not block on subscription; a remote one completes the result from its own I/O threads.
+     *
+     * @return the number of tokens granted, zero when the cluster-wide bucket is empty; a
+     * {@link CoordinatorUnavailableException} signal when the backend cannot be reached, after which the caller
+     * limits locally
+     */
+    Mono<Integer> lease(String nodeId, String bucketKey, RateLimitPolicy policy, int requested);
+
+    class CoordinatorUnavailableException extends RuntimeException {
+        public CoordinatorUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
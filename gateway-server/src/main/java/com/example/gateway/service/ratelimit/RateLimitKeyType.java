@@ -0,0 +1,29 @@
+package com.example.gateway.service.ratelimit;
+
+import java.util.Locale;
+
+/**
+ * What a route's rate limit is counted against.
+ */
+public enum RateLimitKeyType {
+    ROUTE,
+    API_KEY,
+    IP;
+
+    public static RateLimitKeyType parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ROUTE;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "apikey":
+            case "api_key":
+            case "api-key":
+                return API_KEY;
+            case "ip":
+            case "clientip":
+                return IP;
+            default:
+                return ROUTE;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.gateway.service.ratelimit;
+
+import com.example.gateway.model.RouteRule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit settings of one route, converted to nanosecond arithmetic when the snapshot is published.
+ * {@code intervalNanos} is the refill period of a single token and {@code burstNanos} the time it takes
+ * to refill the whole bucket.
+ */
+public record RateLimitPolicy(int permitsPerSecond, int burst, RateLimitKeyType keyType,
+                              long intervalNanos, long burstNanos) {
+
+    public static RateLimitPolicy from(RouteRule route) {
+        Integer qps = route.getRateLimitQps();
+        if (qps == null || qps <= 0) {
+            return null;
+        }
+        int burst = route.getRateLimitBurst() == null || route.getRateLimitBurst() <= 0
+                ? qps
+                : route.getRateLimitBurst();
+        long interval = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / qps);
+        return new RateLimitPolicy(qps, burst, RateLimitKeyType.parse(route.getRateLimitKey()),
+                interval, interval * burst);
+    }
+
+    /**
+     * This limit divided evenly over {@code nodes} gateways, rounded up so that no share drops to zero.
+     */
+    public RateLimitPolicy share(int nodes) {
+        if (nodes <= 1) {
+            return this;
+        }
+        int permits = (permitsPerSecond + nodes - 1) / nodes;
+        int shareBurst = (burst + nodes - 1) / nodes;
+        long interval = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / permits);
+        return new RateLimitPolicy(permits, shareBurst, keyType, interval, interval * shareBurst);
+    }
+}
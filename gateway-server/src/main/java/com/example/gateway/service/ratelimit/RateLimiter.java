@@ -0,0 +1,14 @@
+package com.example.gateway.service.ratelimit;
+
+/**
+ * Decides whether one more request may pass for a route and consumer.
+ */
+public interface RateLimiter {
+
+    /**
+     * @param routeId  id of the matched route
+     * @param consumer resolved consumer key for the policy's {@link RateLimitKeyType}, empty for per-route limits
+     * @param policy   the route's compiled limit
+     */
+    boolean tryAcquire(String routeId, String consumer, RateLimitPolicy policy);
+}
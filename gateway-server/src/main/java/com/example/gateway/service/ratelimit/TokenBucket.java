@@ -0,0 +1,55 @@
+package com.example.gateway.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket held as a single "theoretical arrival time" (the GCRA form of the algorithm), so taking a
+ * token is one CAS on one long. Tokens refill continuously, one every {@code intervalNanos}, and the bucket
+ * holds at most {@code burstNanos / intervalNanos} tokens.
+ */
+final class TokenBucket {
+    private final AtomicLong arrival;
+
+    TokenBucket(long nowNanos) {
+        this.arrival = new AtomicLong(nowNanos);
+    }
+
+    boolean tryAcquire(long nowNanos, long intervalNanos, long burstNanos) {
+        while (true) {
+            long current = arrival.get();
+            long base = current - nowNanos > 0 ? current : nowNanos;
+            long next = base + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes up to {@code max} tokens at once and returns how many were available.
+     */
+    int take(long nowNanos, long intervalNanos, long burstNanos, int max) {
+        while (true) {
+            long current = arrival.get();
+            long base = current - nowNanos > 0 ? current : nowNanos;
+            long available = (burstNanos - (base - nowNanos)) / intervalNanos;
+            int granted = (int) Math.min(max, Math.max(0L, available));
+            if (granted == 0) {
+                return 0;
+            }
+            if (arrival.compareAndSet(current, base + granted * intervalNanos)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * A bucket is idle once it has been full for longer than {@code idleNanos}; dropping it loses nothing.
+     */
+    boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - arrival.get() > idleNanos;
+    }
+}
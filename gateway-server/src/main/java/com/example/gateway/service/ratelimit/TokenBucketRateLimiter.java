@@ -0,0 +1,48 @@
+package com.example.gateway.service.ratelimit;
+
+import com.example.gateway.config.GatewayProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class TokenBucketRateLimiter implements RateLimiter {
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, TokenBucket>> buckets =
+            new ConcurrentHashMap<>();
+    private final long idleNanos;
+
+    public TokenBucketRateLimiter(GatewayProperties properties) {
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getRateLimit().getBucketIdleMs());
+    }
+
+    @Override
+    public boolean tryAcquire(String routeId, String consumer, RateLimitPolicy policy) {
+        long now = System.nanoTime();
+        ConcurrentHashMap<String, TokenBucket> routeBuckets = buckets.get(routeId);
+        if (routeBuckets == null) {
+            routeBuckets = buckets.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+        }
+        TokenBucket bucket = routeBuckets.get(consumer);
+        if (bucket == null) {
+            bucket = routeBuckets.computeIfAbsent(consumer, key -> new TokenBucket(now));
+        }
+        return bucket.tryAcquire(now, policy.intervalNanos(), policy.burstNanos());
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.forEach((routeId, routeBuckets) -> {
+            routeBuckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleNanos));
+            if (routeBuckets.isEmpty()) {
+                buckets.remove(routeId, routeBuckets);
+            }
+        });
+    }
+
+    public int bucketCount() {
+        return buckets.values().stream().mapToInt(ConcurrentHashMap::size).sum();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.gateway.service.upstream;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a request body through unchanged while counting its bytes, failing with
+ * {@link PayloadTooLargeException} as soon as the limit is crossed instead of buffering the body first.
+ */
+public final class BodyLimits {
+    private BodyLimits() {
+    }
+
+    public static Flux<DataBuffer> limit(Flux<DataBuffer> body, long maxBytes) {
+        if (maxBytes <= 0) {
+            return body;
+        }
+        return Flux.defer(() -> {
+            AtomicLong seen = new AtomicLong();
+            return body.handle((buffer, sink) -> {
+                if (seen.addAndGet(buffer.readableByteCount()) > maxBytes) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(new PayloadTooLargeException(maxBytes));
+                } else {
+                    sink.next(buffer);
+                }
+            });
+        });
+    }
+
+    public static class PayloadTooLargeException extends RuntimeException {
+        public PayloadTooLargeException(long maxBytes) {
+            super("Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.gateway.service.upstream;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed / open / half-open breaker of one upstream endpoint. While closed, outcomes go into a ring of
+ * one-second slots; the breaker opens once the window holds at least {@code minimumCalls} and the failure or
+ * slow-call rate crosses its threshold, or after {@code consecutiveFailures} failures in a row. An open
+ * breaker rejects calls for {@code openDuration}, then lets {@code halfOpenCalls} probes through: all of them
+ * succeeding closes it, any failure or slow call reopens it. Every transition is a CAS; nothing blocks.
+ */
+public final class CircuitBreaker {
+    static final int MAX_WINDOW_SECONDS = 15;
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    private static final int SLOTS = 16;
+    private static final int CALLS = 0;
+    private static final int FAILURES = 1;
+    private static final int SLOW = 2;
+    private static final int COUNTERS = 3;
+
+    private final CircuitBreakerPolicy policy;
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLongArray epochs = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray counts = new AtomicLongArray(SLOTS * COUNTERS);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final AtomicLong stateSince = new AtomicLong(System.nanoTime());
+
+    CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+        resetWindow();
+    }
+
+    /**
+     * Returns whether a call may go to the endpoint now. In half-open state a successful acquire consumes one
+     * probe permit; permits not resolved within {@code openDuration} (for example because the client went
+     * away) are handed out again. Opening the probe round is claimed with a CAS on {@code stateSince}, so only
+     * one caller resets the permits and successes; the others go straight to taking a permit.
+     */
+    public boolean tryAcquire() {
+        int current = state.get();
+        if (current == CLOSED || !policy.enabled()) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long since = stateSince.get();
+        if (current == OPEN) {
+            if (now - since < policy.openNanos()) {
+                rejected.increment();
+                return false;
+            }
+            if (stateSince.compareAndSet(since, now)) {
+                halfOpenSuccesses.set(0);
+                halfOpenPermits.set(policy.halfOpenCalls());
+                state.compareAndSet(OPEN, HALF_OPEN);
+            }
+        } else if (halfOpenPermits.get() <= 0 && now - since >= policy.openNanos()
+                && stateSince.compareAndSet(since, now)) {
+            halfOpenPermits.set(policy.halfOpenCalls());
+        }
+        while (true) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                rejected.increment();
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns an acquired permit without an outcome, for calls abandoned before reaching the endpoint.
+     */
+    public void release() {
+        if (state.get() == HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    public void onResult(long nanos, boolean failed) {
+        if (!policy.enabled()) {
+            return;
+        }
+        boolean slow = nanos >= policy.slowCallNanos();
+        int current = state.get();
+        if (current == HALF_OPEN) {
+            if (failed || slow) {
+                trip(HALF_OPEN);
+            } else if (halfOpenSuccesses.incrementAndGet() >= policy.halfOpenCalls()
+                    && state.compareAndSet(HALF_OPEN, CLOSED)) {
+                stateSince.set(System.nanoTime());
+                consecutiveFailures.set(0);
+                resetWindow();
+            }
+            return;
+        }
+        if (current == OPEN) {
+            return;
+        }
+        int index = slot(System.currentTimeMillis() / 1000L);
+        counts.incrementAndGet(index * COUNTERS + CALLS);
+        if (failed) {
+            counts.incrementAndGet(index * COUNTERS + FAILURES);
+            if (policy.consecutiveFailures() > 0
+                    && consecutiveFailures.incrementAndGet() >= policy.consecutiveFailures()) {
+                trip(CLOSED);
+                return;
+            }
+        } else {
+            consecutiveFailures.set(0);
+        }
+        if (slow) {
+            counts.incrementAndGet(index * COUNTERS + SLOW);
+        }
+        long[] sums = window();
+        if (sums[CALLS] >= policy.minimumCalls()
+                && (sums[FAILURES] * 100 >= (long) policy.failureRatePercent() * sums[CALLS]
+                || sums[SLOW] * 100 >= (long) policy.slowCallRatePercent() * sums[CALLS])) {
+            trip(CLOSED);
+        }
+    }
+
+    public String state() {
+        switch (state.get()) {
+            case OPEN:
+                return "OPEN";
+            case HALF_OPEN:
+                return "HALF_OPEN";
+            default:
+                return "CLOSED";
+        }
+    }
+
+    public boolean isClosed() {
+        return state.get() == CLOSED;
+    }
+
+    public BreakerView view() {
+        long[] sums = window();
+        return new BreakerView(state(), sums[CALLS], rate(sums[FAILURES], sums[CALLS]),
+                rate(sums[SLOW], sums[CALLS]), rejected.sum(), opened.sum());
+    }
+
+    private void trip(int from) {
+        long now = System.nanoTime();
+        if (state.compareAndSet(from, OPEN)) {
+            stateSince.set(now);
+            halfOpenPermits.set(0);
+            opened.increment();
+        }
+    }
+
+    private long[] window() {
+        long[] sums = new long[COUNTERS];
+        long currentSlot = System.currentTimeMillis() / 1000L;
+        for (long slot = currentSlot - policy.windowSeconds() + 1; slot <= currentSlot; slot++) {
+            int index = (int) (slot & (SLOTS - 1));
+            if (epochs.get(index) != slot) {
+                continue;
+            }
+            for (int c = 0; c < COUNTERS; c++) {
+                sums[c] += counts.get(index * COUNTERS + c);
+            }
+        }
+        return sums;
+    }
+
+    private int slot(long second) {
+        int index = (int) (second & (SLOTS - 1));
+        long epoch = epochs.get(index);
+        if (epoch != second && epochs.compareAndSet(index, epoch, second)) {
+            for (int c = 0; c < COUNTERS; c++) {
+                counts.set(index * COUNTERS + c, 0L);
+            }
+        }
+        return index;
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < SLOTS; i++) {
+            epochs.set(i, -1L);
+        }
+    }
+
+    private static double rate(long part, long total) {
+        return total == 0 ? 0.0 : part * 100.0 / total;
+    }
+
+    public record BreakerView(String state, long calls, double failureRate, double slowCallRate, long rejected,
+                              long opened) {
+    }
+
+    /**
+     * Signals that no endpoint of a route admitted the call, for paths that report it as an error signal.
+     */
+    public static final class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException() {
+            super("no upstream endpoint admits calls", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.config.GatewayProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thresholds of the per-endpoint circuit breakers, resolved once from {@code gateway.circuit-breaker}.
+ */
+public record CircuitBreakerPolicy(boolean enabled, int windowSeconds, int minimumCalls, int failureRatePercent,
+                                   int slowCallRatePercent, long slowCallNanos, long openNanos,
+                                   int halfOpenCalls, int consecutiveFailures) {
+
+    public static CircuitBreakerPolicy from(GatewayProperties.CircuitBreaker settings) {
+        return new CircuitBreakerPolicy(
+                settings.isEnabled(),
+                Math.max(1, Math.min(CircuitBreaker.MAX_WINDOW_SECONDS, settings.getWindowSeconds())),
+                Math.max(1, settings.getMinimumCalls()),
+                settings.getFailureRateThreshold(),
+                settings.getSlowCallRateThreshold(),
+                TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDurationMs()),
+                TimeUnit.MILLISECONDS.toNanos(settings.getOpenDurationMs()),
+                Math.max(1, settings.getHalfOpenCalls()),
+                settings.getConsecutiveFailures());
+    }
+}
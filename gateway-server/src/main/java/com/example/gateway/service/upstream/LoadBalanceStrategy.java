@@ -0,0 +1,32 @@
+package com.example.gateway.service.upstream;
+
+import java.util.Locale;
+
+/**
+ * How a route with several upstream targets picks one for each request.
+ */
+public enum LoadBalanceStrategy {
+    ROUND_ROBIN,
+    LEAST_OUTSTANDING,
+    POWER_OF_TWO;
+
+    public static LoadBalanceStrategy parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ROUND_ROBIN;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "least-outstanding":
+            case "least_outstanding":
+            case "leastoutstanding":
+            case "least-requests":
+                return LEAST_OUTSTANDING;
+            case "p2c":
+            case "power-of-two":
+            case "power_of_two":
+            case "power-of-two-choices":
+                return POWER_OF_TWO;
+            default:
+                return ROUND_ROBIN;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.config.GatewayProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gateway-wide cap on extra upstream calls. Over the last {@code gateway.retry.budget-window-seconds}, retries
+ * and hedges together may not exceed {@code budget-ratio} of the requests made to routes with a retry policy,
+ * plus {@code budget-min-per-second} so quiet routes can still retry. When an upstream degrades, retries stop
+ * at that extra load instead of multiplying it. Counts live in a ring of one-second slots; a check sums the
+ * window, and concurrent checks may overshoot the cap by the number of racing callers.
+ */
+@Component
+public class RetryBudget {
+    private static final long SLOT_MS = 1000L;
+    private static final int REQUESTS = 0;
+    private static final int WITHDRAWN = 1;
+
+    private final double ratio;
+    private final int minPerSecond;
+    private final int windowSeconds;
+    private final int slots;
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray counts;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public RetryBudget(GatewayProperties properties) {
+        GatewayProperties.Retry retry = properties.getRetry();
+        this.ratio = Math.max(0d, retry.getBudgetRatio());
+        this.minPerSecond = Math.max(0, retry.getBudgetMinPerSecond());
+        this.windowSeconds = Math.max(1, retry.getBudgetWindowSeconds());
+        this.slots = windowSeconds + 1;
+        this.epochs = new AtomicLongArray(slots);
+        this.counts = new AtomicLongArray(slots * 2);
+        for (int i = 0; i < slots; i++) {
+            epochs.set(i, -1L);
+        }
+    }
+
+    /**
+     * Deposits one request's share of the budget.
+     */
+    public void onRequest() {
+        requests.increment();
+        counts.incrementAndGet(slot(System.currentTimeMillis()) * 2 + REQUESTS);
+    }
+
+    public boolean tryRetry() {
+        if (!withdraw()) {
+            return false;
+        }
+        retries.increment();
+        return true;
+    }
+
+    public boolean tryHedge() {
+        if (!withdraw()) {
+            return false;
+        }
+        hedges.increment();
+        return true;
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    private boolean withdraw() {
+        long now = System.currentTimeMillis();
+        int current = slot(now);
+        long second = now / SLOT_MS;
+        long deposited = 0L;
+        long withdrawn = 0L;
+        for (int i = 0; i < slots; i++) {
+            long epoch = epochs.get(i);
+            if (epoch > second - slots && epoch <= second) {
+                deposited += counts.get(i * 2 + REQUESTS);
+                withdrawn += counts.get(i * 2 + WITHDRAWN);
+            }
+        }
+        if (withdrawn + 1 > ratio * deposited + (double) minPerSecond * windowSeconds) {
+            exhausted.increment();
+            return false;
+        }
+        counts.incrementAndGet(current * 2 + WITHDRAWN);
+        return true;
+    }
+
+    /**
+     * The thread that moves a slot to a new second clears it, as in the route metrics windows.
+     */
+    private int slot(long nowMs) {
+        long second = nowMs / SLOT_MS;
+        int index = (int) (second % slots);
+        long epoch = epochs.get(index);
+        if (epoch != second && epochs.compareAndSet(index, epoch, second)) {
+            counts.set(index * 2 + REQUESTS, 0L);
+            counts.set(index * 2 + WITHDRAWN, 0L);
+        }
+        return index;
+    }
+
+    public BudgetStats stats() {
+        return new BudgetStats(ratio, minPerSecond, windowSeconds, requests.sum(), retries.sum(), hedges.sum(),
+                hedgeWins.sum(), exhausted.sum());
+    }
+
+    public record BudgetStats(double ratio, int minPerSecond, int windowSeconds, long requests, long retries,
+                              long hedges, long hedgeWins, long exhausted) {
+    }
+}
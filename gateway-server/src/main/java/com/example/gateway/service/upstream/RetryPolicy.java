@@ -0,0 +1,69 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.model.RouteRule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry and hedging settings of one route. {@code maxAttempts} counts every upstream call a request may make,
+ * the first one and hedges included. A call is retried when it fails before response headers arrive or answers
+ * with one of {@code statuses}, after an exponential backoff with full jitter. With {@code hedge}, a second call
+ * is started when the first has not answered within {@code hedgeDelayMs}, or the route's recent p95 latency
+ * when no delay is set; whichever answers first is used and the other is cancelled. Only idempotent requests
+ * are retried or hedged. A {@code null} policy means the route makes a single attempt.
+ */
+public record RetryPolicy(int maxAttempts, long backoffMs, BitSet statuses, boolean hedge, long hedgeDelayMs) {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final List<Integer> DEFAULT_STATUSES = List.of(502, 503, 504);
+    static final int DEFAULT_BACKOFF_MS = 25;
+    static final int MAX_BACKOFF_FACTOR = 10;
+
+    public static RetryPolicy from(RouteRule route) {
+        boolean hedge = Boolean.TRUE.equals(route.getHedge());
+        Integer attempts = route.getRetryAttempts();
+        int maxAttempts = attempts != null ? attempts : hedge ? 2 : 1;
+        if (maxAttempts <= 1) {
+            return null;
+        }
+        BitSet statuses = new BitSet();
+        for (Integer status : route.getRetryStatuses() == null ? DEFAULT_STATUSES : route.getRetryStatuses()) {
+            if (status != null && status >= 100 && status < 600) {
+                statuses.set(status);
+            }
+        }
+        Integer backoff = route.getRetryBackoffMs();
+        Integer hedgeDelay = route.getHedgeDelayMs();
+        return new RetryPolicy(maxAttempts, backoff == null || backoff < 0 ? DEFAULT_BACKOFF_MS : backoff, statuses,
+                hedge, hedgeDelay == null || hedgeDelay <= 0 ? 0L : hedgeDelay);
+    }
+
+    /**
+     * Methods whose repetition has the same effect as a single call, plus any request carrying an
+     * {@code Idempotency-Key} for the upstream to deduplicate on.
+     */
+    public static boolean idempotent(HttpMethod method, HttpHeaders headers) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS
+                || method == HttpMethod.TRACE || method == HttpMethod.PUT || method == HttpMethod.DELETE
+                || headers.containsKey(IDEMPOTENCY_KEY);
+    }
+
+    public boolean retryOn(int status) {
+        return statuses.get(status);
+    }
+
+    /**
+     * Pause before retry number {@code retry} (1-based): uniform between zero and {@code backoffMs} doubled per
+     * retry, capped at ten times {@code backoffMs}.
+     */
+    public long backoffMillis(int retry) {
+        if (backoffMs == 0) {
+            return 0L;
+        }
+        long ceiling = Math.min(backoffMs * MAX_BACKOFF_FACTOR, backoffMs << Math.min(retry - 1, 16));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.model.RouteRule;
+import com.example.gateway.model.UpstreamTarget;
+import com.example.gateway.service.ForwardPlan;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the upstream endpoint for each request to a route, compiled from the rule's {@code targets} (or its
+ * single {@code target}) when a snapshot is published. Selection takes no locks: smooth weighted round-robin
+ * walks a schedule precomputed from the weights with one atomic increment, least-outstanding scans the
+ * in-flight counters, and power-of-two-choices compares two weighted random picks on latency times load.
+ * Endpoints whose circuit breaker is open are ejected from selection until it half-opens.
+ */
+public final class UpstreamBalancer {
+    private static final int MAX_SCHEDULE = 4096;
+
+    private final LoadBalanceStrategy strategy;
+    private final UpstreamEndpoint[] endpoints;
+    private final int[] schedule;
+    private final int[] cumulativeWeights;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private UpstreamBalancer(LoadBalanceStrategy strategy, UpstreamEndpoint[] endpoints) {
+        this.strategy = strategy;
+        this.endpoints = endpoints;
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += endpoints[i].weight();
+            cumulativeWeights[i] = total;
+        }
+        this.schedule = strategy == LoadBalanceStrategy.ROUND_ROBIN && endpoints.length > 1
+                ? smoothSchedule(endpoints)
+                : null;
+    }
+
+    public static UpstreamBalancer compile(RouteRule rule, CircuitBreakerPolicy breakerPolicy) {
+        List<UpstreamEndpoint> endpoints = new ArrayList<>();
+        if (rule.getTargets() != null) {
+            for (UpstreamTarget target : rule.getTargets()) {
+                if (target != null && StringUtils.hasText(target.getUrl())) {
+                    int weight = target.getWeight() == null ? 1 : Math.max(1, target.getWeight());
+                    endpoints.add(new UpstreamEndpoint(ForwardPlan.compile(rule, target.getUrl()), weight,
+                            new CircuitBreaker(breakerPolicy)));
+                }
+            }
+        }
+        if (endpoints.isEmpty()) {
+            endpoints.add(new UpstreamEndpoint(ForwardPlan.compile(rule), 1, new CircuitBreaker(breakerPolicy)));
+        }
+        return new UpstreamBalancer(LoadBalanceStrategy.parse(rule.getLoadBalancer()),
+                endpoints.toArray(new UpstreamEndpoint[0]));
+    }
+
+    /**
+     * Selects an endpoint whose breaker admits the call: the strategy's pick when it does, otherwise the
+     * first admitting endpoint from a random offset.
+     *
+     * @return the endpoint, or {@code null} when every endpoint's breaker is open
+     */
+    public UpstreamEndpoint acquire() {
+        UpstreamEndpoint chosen = select();
+        if (chosen.breaker().tryAcquire()) {
+            return chosen;
+        }
+        if (endpoints.length == 1) {
+            return null;
+        }
+        int start = ThreadLocalRandom.current().nextInt(endpoints.length);
+        for (int i = 0; i < endpoints.length; i++) {
+            UpstreamEndpoint candidate = endpoints[(start + i) % endpoints.length];
+            if (candidate != chosen && candidate.breaker().tryAcquire()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public UpstreamEndpoint select() {
+        if (endpoints.length == 1) {
+            return endpoints[0];
+        }
+        switch (strategy) {
+            case LEAST_OUTSTANDING:
+                return leastOutstanding();
+            case POWER_OF_TWO:
+                return powerOfTwo();
+            default:
+                return endpoints[schedule[Math.floorMod(cursor.getAndIncrement(), schedule.length)]];
+        }
+    }
+
+    public LoadBalanceStrategy strategy() {
+        return strategy;
+    }
+
+    public List<UpstreamEndpoint> endpoints() {
+        return List.of(endpoints);
+    }
+
+    public BalancerView view(String routeId) {
+        List<EndpointView> views = new ArrayList<>(endpoints.length);
+        for (UpstreamEndpoint endpoint : endpoints) {
+            views.add(new EndpointView(endpoint.plan().origin(), endpoint.weight(), endpoint.outstanding(),
+                    endpoint.latencyEwmaNanos() / 1_000_000.0, endpoint.breaker().view()));
+        }
+        return new BalancerView(routeId, strategy, views);
+    }
+
+    private UpstreamEndpoint leastOutstanding() {
+        int start = ThreadLocalRandom.current().nextInt(endpoints.length);
+        UpstreamEndpoint best = endpoints[start];
+        int bestLoad = best.outstanding();
+        for (int i = 1; i < endpoints.length; i++) {
+            UpstreamEndpoint candidate = endpoints[(start + i) % endpoints.length];
+            int load = candidate.outstanding();
+            // compare load / weight without dividing
+            if ((long) load * best.weight() < (long) bestLoad * candidate.weight()) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private UpstreamEndpoint powerOfTwo() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = weightedPick(random);
+        int second = weightedPick(random);
+        if (second == first) {
+            second = (first + 1 + random.nextInt(endpoints.length - 1)) % endpoints.length;
+        }
+        return cost(endpoints[first]) <= cost(endpoints[second]) ? endpoints[first] : endpoints[second];
+    }
+
+    private int weightedPick(ThreadLocalRandom random) {
+        int point = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private static double cost(UpstreamEndpoint endpoint) {
+        // endpoints without a latency sample yet cost the least, so they get probed first
+        return (endpoint.latencyEwmaNanos() + 1.0) * (endpoint.outstanding() + 1) / endpoint.weight();
+    }
+
+    /**
+     * Unrolls one period of nginx-style smooth weighted round-robin, scaled down when the weights sum past
+     * {@link #MAX_SCHEDULE}, so a heavy endpoint's turns are interleaved rather than bunched.
+     */
+    private static int[] smoothSchedule(UpstreamEndpoint[] endpoints) {
+        int[] weights = new int[endpoints.length];
+        int divisor = 0;
+        long sum = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            weights[i] = endpoints[i].weight();
+            divisor = gcd(divisor, weights[i]);
+            sum += weights[i];
+        }
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = sum / divisor > MAX_SCHEDULE
+                    ? (int) Math.max(1, (long) weights[i] * MAX_SCHEDULE / sum)
+                    : weights[i] / divisor;
+            total += weights[i];
+        }
+        int[] schedule = new int[total];
+        int[] current = new int[weights.length];
+        for (int slot = 0; slot < total; slot++) {
+            int best = 0;
+            for (int i = 0; i < weights.length; i++) {
+                current[i] += weights[i];
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            schedule[slot] = best;
+        }
+        return schedule;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public record BalancerView(String routeId, LoadBalanceStrategy strategy, List<EndpointView> endpoints) {
+    }
+
+    public record EndpointView(String target, int weight, int outstanding, double latencyMs,
+                               CircuitBreaker.BreakerView breaker) {
+    }
+}
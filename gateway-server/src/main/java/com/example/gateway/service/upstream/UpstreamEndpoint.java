@@ -0,0 +1,77 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.service.ForwardPlan;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One upstream target of a route, with the live load signals the balancer reads: requests in flight, an
+ * exponentially weighted average of time to response headers, and the endpoint's circuit breaker.
+ */
+public final class UpstreamEndpoint {
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ForwardPlan plan;
+    private final int weight;
+    private final CircuitBreaker breaker;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile long latencyEwmaNanos;
+
+    UpstreamEndpoint(ForwardPlan plan, int weight, CircuitBreaker breaker) {
+        this.plan = plan;
+        this.weight = weight;
+        this.breaker = breaker;
+    }
+
+    public ForwardPlan plan() {
+        return plan;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    public long latencyEwmaNanos() {
+        return latencyEwmaNanos;
+    }
+
+    public void start() {
+        outstanding.incrementAndGet();
+    }
+
+    public void finish() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Reports the outcome of a call admitted by {@link CircuitBreaker#tryAcquire()} to the breaker.
+     */
+    public void complete(long nanos, boolean failed) {
+        breaker.onResult(nanos, failed);
+    }
+
+    /**
+     * Folds a sample into the average with weight 1/8. Concurrent updates may drop a sample, which only
+     * slows convergence.
+     */
+    public void recordLatency(long nanos) {
+        long prior = latencyEwmaNanos;
+        latencyEwmaNanos = prior == 0 ? nanos : prior + ((nanos - prior) >> 3);
+    }
+
+    /**
+     * Counts a failed exchange as a slow one, so fast connection errors do not attract traffic.
+     */
+    public void recordFailure(long nanos) {
+        recordLatency(Math.max(nanos, FAILURE_PENALTY_NANOS));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.model.RouteRule;
+
+import java.time.Duration;
+
+/**
+ * Timeouts, body limit and upstream protocol of one route. Connect timeouts belong to the upstream's pool
+ * ({@code gateway.upstream.pool.connect-timeout-ms}). {@code firstByte} bounds the wait for upstream
+ * response headers and, between body chunks, for the next chunk; {@code total} bounds the whole exchange
+ * including the streamed body. A {@code null} duration or a non-positive size means no limit.
+ */
+public record UpstreamLimits(Duration firstByte, Duration total, long maxBodyBytes, UpstreamProtocol protocol) {
+    static final int DEFAULT_TIMEOUT_MS = 3000;
+
+    public static UpstreamLimits from(RouteRule route) {
+        Integer firstByte = route.getTimeoutMs();
+        return new UpstreamLimits(
+                Duration.ofMillis(firstByte == null || firstByte <= 0 ? DEFAULT_TIMEOUT_MS : firstByte),
+                positive(route.getTotalTimeoutMs()),
+                route.getMaxBodyBytes() == null ? 0L : route.getMaxBodyBytes(),
+                UpstreamProtocol.parse(route.getUpstreamProtocol())
+        );
+    }
+
+    private static Duration positive(Integer millis) {
+        return millis == null || millis <= 0 ? null : Duration.ofMillis(millis);
+    }
+}
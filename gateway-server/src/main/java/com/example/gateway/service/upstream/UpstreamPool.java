@@ -0,0 +1,145 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.service.metrics.LatencyHistogram;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A dedicated Reactor Netty connection pool, and the {@link WebClient} bound to it, for one upstream
+ * {@code scheme://host:port} and protocol. HTTP/2 pools open up to {@code maxConnections} connections and
+ * multiplex up to {@code maxConcurrentStreams} requests on each; the HTTP version every request actually went
+ * out with is counted, so an {@code https} upstream that declined {@code h2} in ALPN shows up as HTTP/1.1.
+ */
+public final class UpstreamPool {
+    private final String key;
+    private final UpstreamProtocol protocol;
+    private final GatewayProperties.Pool settings;
+    private final ConnectionProvider provider;
+    private final WebClient client;
+    private final ConcurrentHashMap<String, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder http1Requests = new LongAdder();
+    private final LongAdder http2Requests = new LongAdder();
+
+    UpstreamPool(String key, UpstreamProtocol protocol, GatewayProperties.Pool settings, WebClient.Builder builder) {
+        this.key = key;
+        this.protocol = protocol;
+        this.settings = settings;
+        ConnectionProvider.Builder pool = ConnectionProvider.builder("upstream-" + protocol.poolKey(key))
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(settings.getMaxIdleTimeMs()))
+                .maxLifeTime(Duration.ofMillis(settings.getMaxLifeTimeMs()))
+                .evictInBackground(Duration.ofMillis(settings.getEvictIntervalMs()))
+                .metrics(true, () -> new Registrar());
+        if (protocol == UpstreamProtocol.HTTP2) {
+            pool.allocationStrategy(Http2AllocationStrategy.builder()
+                    .minConnections(1)
+                    .maxConnections(settings.getMaxConnections())
+                    .maxConcurrentStreams(settings.getMaxConcurrentStreams())
+                    .build());
+        }
+        this.provider = pool.build();
+        // every option is set here once: a different option set would make Reactor Netty key a separate pool
+        HttpClient httpClient = HttpClient.create(provider)
+                .protocol(protocol.nettyProtocols(key.startsWith("https:")))
+                .keepAlive(settings.isKeepAlive())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) Math.min(Integer.MAX_VALUE, Math.max(1L, settings.getConnectTimeoutMs())))
+                .doOnRequest((request, connection) -> {
+                    (connection.channel() instanceof Http2StreamChannel ? http2Requests : http1Requests).increment();
+                    recordAcquire(request.currentContextView().getOrDefault(UpstreamPoolRegistry.ACQUIRE_START, 0L));
+                });
+        this.client = builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public WebClient client() {
+        return client;
+    }
+
+    ConnectionProvider provider() {
+        return provider;
+    }
+
+    /**
+     * Reactor Netty keeps one pool per resolved remote address, so the figures are summed over all of them.
+     */
+    public PoolView view() {
+        int active = 0;
+        int allocated = 0;
+        int idle = 0;
+        int pending = 0;
+        for (ConnectionPoolMetrics metrics : poolMetrics.values()) {
+            active += metrics.acquiredSize();
+            allocated += metrics.allocatedSize();
+            idle += metrics.idleSize();
+            pending += metrics.pendingAcquireSize();
+        }
+        long[] latency = acquireLatency.percentiles(0.5, 0.99);
+        return new PoolView(
+                key,
+                protocol,
+                settings.getMaxConnections(),
+                protocol == UpstreamProtocol.HTTP2 ? settings.getMaxConcurrentStreams() : 1,
+                active,
+                allocated,
+                idle,
+                pending,
+                settings.getMaxConnections() == 0
+                        ? 0.0
+                        : Math.round(1000.0 * active / settings.getMaxConnections()) / 1000.0,
+                acquired.sum(),
+                latency[0] / 1000.0,
+                latency[1] / 1000.0,
+                http1Requests.sum(),
+                http2Requests.sum()
+        );
+    }
+
+    private void recordAcquire(long startNanos) {
+        if (startNanos == 0L) {
+            return;
+        }
+        acquired.increment();
+        acquireLatency.record((System.nanoTime() - startNanos) / 1000L);
+    }
+
+    private final class Registrar implements ConnectionProvider.MeterRegistrar {
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                    ConnectionPoolMetrics metrics) {
+            poolMetrics.put(id, metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            poolMetrics.remove(id);
+        }
+    }
+
+    public record PoolView(String upstream, UpstreamProtocol protocol, int maxConnections,
+                           int maxStreamsPerConnection, int active, int allocated, int idle, int pendingAcquire,
+                           double utilisation, long acquires, double acquireP50Ms, double acquireP99Ms,
+                           long http1Requests, long http2Requests) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.gateway.service.upstream;
+
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.service.CompiledRoute;
+import com.example.gateway.service.ForwardPlan;
+import com.example.gateway.service.RouteTable;
+import com.example.gateway.service.RouteTableListener;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link UpstreamPool} per distinct upstream of the active route table. Pools are created on the
+ * first request to an upstream and drained, after {@code gateway.upstream.drain-timeout-ms}, once no
+ * published route points at that upstream any more. Requests still running on an older table keep using the
+ * draining pool, or the shared client once it is gone; only upstreams of the active table get new pools.
+ */
+@Component
+public class UpstreamPoolRegistry implements RouteTableListener {
+    static final String ACQUIRE_START = UpstreamPoolRegistry.class.getName() + ".acquireStart";
+
+    private final GatewayProperties.Upstream properties;
+    private final WebClient.Builder builder;
+    private final WebClient fallback;
+    private final Map<String, GatewayProperties.Pool> hostSettings = new HashMap<>();
+    private final ConcurrentHashMap<String, UpstreamPool> pools = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UpstreamPool> draining = new ConcurrentHashMap<>();
+    private volatile Set<String> liveKeys = Set.of();
+
+    public UpstreamPoolRegistry(GatewayProperties properties, WebClient.Builder builder, WebClient fallback) {
+        this.properties = properties.getUpstream();
+        this.builder = builder;
+        this.fallback = fallback;
+        this.properties.getHosts().forEach((host, settings) -> hostSettings.put(normalizeHost(host), settings));
+    }
+
+    /**
+     * Returns the client bound to the plan's upstream pool, or the shared client for targets without a host.
+     */
+    public WebClient client(ForwardPlan plan) {
+        return client(plan, UpstreamProtocol.HTTP1);
+    }
+
+    /**
+     * Same as {@link #client(ForwardPlan)} for the route's upstream protocol.
+     */
+    public WebClient client(ForwardPlan plan, UpstreamProtocol protocol) {
+        String upstream = plan.upstreamKey();
+        if (upstream == null) {
+            return fallback;
+        }
+        String key = protocol.poolKey(upstream);
+        UpstreamPool pool = pools.get(key);
+        if (pool == null) {
+            if (!liveKeys.contains(key)) {
+                UpstreamPool retired = draining.get(key);
+                return retired != null ? retired.client() : fallback;
+            }
+            pool = pools.computeIfAbsent(key, ignored -> createPool(upstream, protocol));
+        }
+        return pool.client();
+    }
+
+    /**
+     * Marks the start of a connection acquire; pass to {@code contextWrite} on the upstream exchange.
+     */
+    public static Context markAcquireStart(Context context) {
+        return context.put(ACQUIRE_START, System.nanoTime());
+    }
+
+    @Override
+    public void onPublish(RouteTable table) {
+        Set<String> live = new HashSet<>();
+        for (int i = 0; i < table.size(); i++) {
+            CompiledRoute route = table.route(i);
+            addLiveKeys(route, live);
+            if (route.split() != null) {
+                for (int variant = 0; variant < route.split().size(); variant++) {
+                    addLiveKeys(route.split().route(variant), live);
+                }
+            }
+        }
+        liveKeys = live;
+        for (String key : new ArrayList<>(pools.keySet())) {
+            if (!live.contains(key)) {
+                UpstreamPool removed = pools.remove(key);
+                if (removed != null) {
+                    drain(key, removed);
+                }
+            }
+        }
+    }
+
+    private static void addLiveKeys(CompiledRoute route, Set<String> live) {
+        UpstreamProtocol protocol = route.limits().protocol();
+        for (UpstreamEndpoint endpoint : route.upstreams().endpoints()) {
+            String key = endpoint.plan().upstreamKey();
+            if (key != null) {
+                live.add(protocol.poolKey(key));
+            }
+        }
+    }
+
+    public List<UpstreamPool.PoolView> snapshot() {
+        List<UpstreamPool.PoolView> views = new ArrayList<>();
+        pools.values().forEach(pool -> views.add(pool.view()));
+        return views;
+    }
+
+    public Set<String> liveUpstreams() {
+        return liveKeys;
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.values().forEach(pool -> pool.provider().dispose());
+        pools.clear();
+        draining.values().forEach(pool -> pool.provider().dispose());
+        draining.clear();
+    }
+
+    private UpstreamPool createPool(String upstream, UpstreamProtocol protocol) {
+        GatewayProperties.Pool settings = hostSettings.get(normalizeHost(upstream));
+        if (settings == null) {
+            settings = hostSettings.getOrDefault(normalizeHost(upstream.substring(upstream.indexOf("://") + 3)),
+                    properties.getPool());
+        }
+        return new UpstreamPool(upstream, protocol, settings, builder);
+    }
+
+    /**
+     * Unbracketed map keys reach {@code gateway.upstream.hosts} with every character other than letters, digits,
+     * {@code -} and {@code .} removed, so {@code http://localhost:9001} arrives as {@code httplocalhost9001}.
+     * Both the configured keys and the upstream are reduced the same way before the lookup, which matches
+     * {@code scheme://host:port} and {@code host:port} keys whether or not they were bracketed.
+     */
+    static String normalizeHost(String key) {
+        StringBuilder normalized = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '-' || c == '.') {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private void drain(String key, UpstreamPool pool) {
+        draining.put(key, pool);
+        Mono.delay(Duration.ofMillis(properties.getDrainTimeoutMs()))
+                .doOnNext(tick -> draining.remove(key, pool))
+                .then(pool.provider().disposeLater())
+                .subscribe(ignored -> { }, error -> { });
+    }
+}
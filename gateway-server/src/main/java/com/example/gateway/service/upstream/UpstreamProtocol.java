@@ -0,0 +1,47 @@
+package com.example.gateway.service.upstream;
+
+import reactor.netty.http.HttpProtocol;
+
+import java.util.Locale;
+
+/**
+ * HTTP version a route speaks to its upstreams. {@code HTTP2} negotiates {@code h2} through TLS ALPN on
+ * {@code https} targets, falling back to HTTP/1.1 when the upstream does not offer it, and uses cleartext
+ * {@code h2c} with prior knowledge on {@code http} targets.
+ */
+public enum UpstreamProtocol {
+    HTTP1,
+    HTTP2;
+
+    public static UpstreamProtocol parse(String value) {
+        if (value == null || value.isBlank()) {
+            return HTTP1;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "h2":
+            case "h2c":
+            case "http2":
+            case "http/2":
+                return HTTP2;
+            default:
+                return HTTP1;
+        }
+    }
+
+    HttpProtocol[] nettyProtocols(boolean secure) {
+        if (this == HTTP1) {
+            return new HttpProtocol[]{HttpProtocol.HTTP11};
+        }
+        return secure
+                ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                : new HttpProtocol[]{HttpProtocol.H2C};
+    }
+
+    /**
+     * Key of the connection pool for an upstream spoken to in this protocol; HTTP/2 pools are kept apart
+     * because their connections are multiplexed.
+     */
+    String poolKey(String upstreamKey) {
+        return this == HTTP1 ? upstreamKey : upstreamKey + " h2";
+    }
+}
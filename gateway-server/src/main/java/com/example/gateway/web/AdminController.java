@@ -2,13 +2,35 @@ package com.example.gateway.web;
 
 import com.example.gateway.model.RouteRule;
 import com.example.gateway.model.RuleSnapshot;
+import com.example.gateway.service.BlockingExecutor;
+import com.example.gateway.service.CompiledRoute;
+import com.example.gateway.service.RouteTable;
+import com.example.gateway.service.RuleCommand;
+import com.example.gateway.service.RuleCommandQueue;
+import com.example.gateway.service.RuleTransfer;
+import com.example.gateway.service.RuleReloader;
 import com.example.gateway.service.RuleService;
+import com.example.gateway.service.cache.RequestCoalescer;
+import com.example.gateway.service.cache.ResponseCache;
+import com.example.gateway.service.ratelimit.ClusterRateLimiter;
+import com.example.gateway.service.upstream.CircuitBreaker;
+import com.example.gateway.service.upstream.RetryBudget;
+import com.example.gateway.service.upstream.UpstreamBalancer;
+import com.example.gateway.service.upstream.UpstreamEndpoint;
+import com.example.gateway.service.upstream.UpstreamPoolRegistry;
 import jakarta.validation.Valid;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -17,49 +39,119 @@ import java.util.Optional;
 public class AdminController {
     private final RuleService ruleService;
     private final com.example.gateway.service.RouteMetricsService metricsService;
+    private final UpstreamPoolRegistry upstreamPools;
+    private final RuleReloader reloader;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final ClusterRateLimiter rateLimiter;
+    private final BlockingExecutor blocking;
+    private final RuleCommandQueue commands;
+    private final RuleTransfer transfer;
+    private final RetryBudget retryBudget;
 
-    public AdminController(RuleService ruleService, com.example.gateway.service.RouteMetricsService metricsService) {
+    public AdminController(RuleService ruleService, com.example.gateway.service.RouteMetricsService metricsService,
+                           UpstreamPoolRegistry upstreamPools, RuleReloader reloader, ResponseCache responseCache,
+                           RequestCoalescer requestCoalescer, ClusterRateLimiter rateLimiter,
+                           BlockingExecutor blocking, RuleCommandQueue commands, RuleTransfer transfer,
+                           RetryBudget retryBudget) {
         this.ruleService = ruleService;
         this.metricsService = metricsService;
+        this.upstreamPools = upstreamPools;
+        this.reloader = reloader;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.rateLimiter = rateLimiter;
+        this.blocking = blocking;
+        this.commands = commands;
+        this.transfer = transfer;
+        this.retryBudget = retryBudget;
     }
 
     @GetMapping
-    public RuleSnapshot list() {
-        return ruleService.getSnapshot();
+    public ResponseEntity<RuleSnapshot> list() {
+        RuleSnapshot snapshot = ruleService.getSnapshot();
+        return ResponseEntity.ok().eTag(snapshot.getVersion()).body(snapshot);
     }
 
     @PostMapping
-    public ResponseEntity<?> create(@RequestBody @Valid RouteRule route) throws IOException {
-        if (route.getPath() == null || route.getTarget() == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "path 与 target 为必填字段"));
+    public Mono<ResponseEntity<?>> create(@RequestBody @Valid RouteRule route,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (route.getPath() == null
+                || (route.getTarget() == null && (route.getTargets() == null || route.getTargets().isEmpty()))) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "path 与 target（或 targets）为必填字段")));
         }
-        RouteRule created = ruleService.addRoute(route);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        return commands.submit(RuleCommand.add(route, ifVersion(ifMatch)))
+                .map(result -> respond(result, HttpStatus.CREATED, result.rule()));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable String id, @RequestBody RouteRule route) throws IOException {
-        Optional<RouteRule> updated = ruleService.updateRoute(id, route);
-        return updated.<ResponseEntity<?>>map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "未找到该规则")));
+    public Mono<ResponseEntity<?>> update(@PathVariable String id, @RequestBody RouteRule route,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return commands.submit(RuleCommand.update(id, route, ifVersion(ifMatch)))
+                .map(result -> respond(result, HttpStatus.OK, result.rule()));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable String id) throws IOException {
-        boolean deleted = ruleService.deleteRoute(id);
-        if (!deleted) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", "未找到该规则"));
+    public Mono<ResponseEntity<?>> delete(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return commands.submit(RuleCommand.delete(id, ifVersion(ifMatch)))
+                .map(result -> respond(result, HttpStatus.OK, Map.of("success", true)));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<?>> batch(@RequestBody List<RuleCommand> batch) {
+        if (batch.isEmpty()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "命令列表不能为空")));
         }
-        return ResponseEntity.ok(Map.of("success", true));
+        return commands.submitAll(batch).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/batches")
+    public ResponseEntity<?> batches() {
+        return ResponseEntity.ok(commands.stats());
     }
 
     @PostMapping("/import")
-    public ResponseEntity<?> importSnapshot(@RequestBody RuleSnapshot snapshot) throws IOException {
-        RuleSnapshot updated = ruleService.replaceSnapshot(snapshot);
-        return ResponseEntity.ok(updated);
+    public Mono<ResponseEntity<?>> importSnapshot(@RequestBody RuleSnapshot snapshot) {
+        return blocking.write(() -> ResponseEntity.ok(ruleService.replaceSnapshot(snapshot)));
+    }
+
+    /**
+     * NDJSON import, one rule per line, applied in chunks as the body streams in; {@code replace=true} also
+     * deletes rules the stream did not contain.
+     */
+    @PostMapping(value = "/import/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<?>> importStream(@RequestBody Flux<RouteRule> rules,
+                                                @RequestParam(defaultValue = "false") boolean replace) {
+        return transfer.importRules(rules, replace).map(ResponseEntity::ok);
+    }
+
+    /**
+     * NDJSON export streamed straight from the published snapshot.
+     */
+    @GetMapping(value = "/export/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> exportStream(ServerHttpResponse response) {
+        RuleSnapshot snapshot = ruleService.getSnapshot();
+        return ResponseEntity.ok()
+                .eTag(snapshot.getVersion())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(transfer.exportRules(snapshot.getRoutes(), response.bufferFactory()));
+    }
+
+    @PatchMapping("/groups/{group}")
+    public Mono<ResponseEntity<?>> updateGroup(@PathVariable String group, @RequestBody RouteRule patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return blocking.write(() -> ruleService.updateGroup(group, patch, ifVersion(ifMatch)))
+                .map(AdminController::respondGroup);
+    }
+
+    @DeleteMapping("/groups/{group}")
+    public Mono<ResponseEntity<?>> deleteGroup(@PathVariable String group,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return blocking.write(() -> ruleService.deleteGroup(group, ifVersion(ifMatch)))
+                .map(AdminController::respondGroup);
     }
 
     @GetMapping("/export")
@@ -67,11 +159,87 @@ public class AdminController {
         return ResponseEntity.ok(ruleService.getSnapshot());
     }
 
+    @GetMapping("/versions")
+    public ResponseEntity<?> versions() {
+        return ResponseEntity.ok(ruleService.versions());
+    }
+
+    @GetMapping("/versions/diff")
+    public ResponseEntity<?> diffVersions(@RequestParam long from, @RequestParam long to) {
+        return ruleService.diff(from, to).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "未找到该版本")));
+    }
+
+    @PostMapping("/versions/{revision}/rollback")
+    public Mono<ResponseEntity<?>> rollback(@PathVariable long revision) {
+        return blocking.write(() -> ruleService.rollback(revision)
+                .<ResponseEntity<?>>map(table -> ResponseEntity.ok(Map.of(
+                        "revision", table.revision(),
+                        "diff", table.diff())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "未找到该版本"))));
+    }
+
     @GetMapping("/metrics")
     public ResponseEntity<?> metrics() {
         return ResponseEntity.ok(metricsService.snapshot());
     }
 
+    @GetMapping("/pools")
+    public ResponseEntity<?> pools() {
+        return ResponseEntity.ok(upstreamPools.snapshot());
+    }
+
+    @GetMapping("/upstreams")
+    public ResponseEntity<?> upstreams() {
+        RouteTable table = ruleService.getRouteTable();
+        List<UpstreamBalancer.BalancerView> views = new ArrayList<>();
+        for (int i = 0; i < table.size(); i++) {
+            UpstreamBalancer upstreams = table.route(i).upstreams();
+            if (upstreams.endpoints().size() > 1) {
+                views.add(upstreams.view(table.route(i).rule().getId()));
+            }
+        }
+        return ResponseEntity.ok(views);
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<?> cache() {
+        return ResponseEntity.ok(responseCache.stats());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> purgeCache() {
+        responseCache.invalidateAll();
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    @GetMapping("/coalescing")
+    public ResponseEntity<?> coalescing() {
+        return ResponseEntity.ok(requestCoalescer.stats());
+    }
+
+    @GetMapping("/retries")
+    public ResponseEntity<?> retries() {
+        return ResponseEntity.ok(retryBudget.stats());
+    }
+
+    @GetMapping("/rate-limit")
+    public ResponseEntity<?> rateLimit() {
+        return ResponseEntity.ok(rateLimiter.stats());
+    }
+
+    @GetMapping("/reload")
+    public ResponseEntity<?> reload() {
+        return ResponseEntity.ok(reloader.stats());
+    }
+
+    @GetMapping("/writer")
+    public ResponseEntity<?> writer() {
+        return ResponseEntity.ok(blocking.stats());
+    }
+
     @GetMapping("/summary")
     public ResponseEntity<?> summary() {
         RuleSnapshot snapshot = ruleService.getSnapshot();
@@ -91,7 +259,89 @@ public class AdminController {
                 "enabled", enabled,
                 "disabled", disabled,
                 "withAuth", withAuth,
-                "limited", limited
+                "limited", limited,
+                "circuitBreakers", breakerSummary(ruleService.getRouteTable())
         ));
     }
+
+    private static ResponseEntity<?> respond(RuleCommand.Result result, HttpStatus status, Object body) {
+        return switch (result.outcome()) {
+            case APPLIED -> ResponseEntity.status(status).eTag(result.version()).body(body);
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "未找到该规则"));
+            case DUPLICATE -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "规则 ID 已存在"));
+            case INVALID -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "path 与 target（或 targets）为必填字段"));
+            case PRECONDITION_FAILED -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(result.version())
+                    .body(Map.of("error", "规则快照已被修改，请刷新后重试",
+                            "version", result.version()));
+        };
+    }
+
+    private static ResponseEntity<?> respondGroup(Optional<RuleCommand.GroupResult> result) {
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "规则快照已被修改，请刷新后重试"));
+        }
+        if (result.get().matched() == 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "该分组下没有规则"));
+        }
+        return ResponseEntity.ok().eTag(result.get().version()).body(result.get());
+    }
+
+    /**
+     * The snapshot version an {@code If-Match} header asks for; {@code null} (unconditional) when absent or
+     * {@code *}.
+     */
+    private static String ifVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        return tag;
+    }
+
+    private Map<String, Object> breakerSummary(RouteTable table) {
+        int open = 0;
+        int halfOpen = 0;
+        List<Map<String, Object>> tripped = new ArrayList<>();
+        List<CompiledRoute> routes = new ArrayList<>();
+        for (int i = 0; i < table.size(); i++) {
+            CompiledRoute route = table.route(i);
+            if (route.split() == null) {
+                routes.add(route);
+            } else {
+                for (int variant = 0; variant < route.split().size(); variant++) {
+                    routes.add(route.split().route(variant));
+                }
+            }
+        }
+        for (CompiledRoute route : routes) {
+            for (UpstreamEndpoint endpoint : route.upstreams().endpoints()) {
+                if (endpoint.breaker().isClosed()) {
+                    continue;
+                }
+                CircuitBreaker.BreakerView view = endpoint.breaker().view();
+                if ("OPEN".equals(view.state())) {
+                    open++;
+                } else {
+                    halfOpen++;
+                }
+                tripped.add(Map.of(
+                        "routeId", String.valueOf(route.rule().getId()),
+                        "target", String.valueOf(endpoint.plan().origin()),
+                        "breaker", view));
+            }
+        }
+        return Map.of("open", open, "halfOpen", halfOpen, "endpoints", tripped);
+    }
 }
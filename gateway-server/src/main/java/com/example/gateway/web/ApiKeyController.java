@@ -0,0 +1,62 @@
+package com.example.gateway.web;
+
+import com.example.gateway.service.BlockingExecutor;
+import com.example.gateway.service.auth.ApiKeyRegistry;
+import com.example.gateway.service.auth.JwtVerifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/keys")
+public class ApiKeyController {
+    private final ApiKeyRegistry registry;
+    private final JwtVerifier jwtVerifier;
+    private final BlockingExecutor blocking;
+
+    public ApiKeyController(ApiKeyRegistry registry, JwtVerifier jwtVerifier, BlockingExecutor blocking) {
+        this.registry = registry;
+        this.jwtVerifier = jwtVerifier;
+        this.blocking = blocking;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> list() {
+        return ResponseEntity.ok(registry.list());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> issue(@RequestBody KeyRequest request) {
+        if ((request.routes() == null || request.routes().isEmpty())
+                && (request.groups() == null || request.groups().isEmpty())) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "routes 与 groups 至少填写一项")));
+        }
+        return blocking.write(() -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(registry.issue(request.consumer(), request.routes(), request.groups())));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<?>> revoke(@PathVariable String id) {
+        return blocking.write(() -> registry.revoke(id).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "未找到该 API Key"))));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(registry.stats());
+    }
+
+    @GetMapping("/tokens")
+    public ResponseEntity<?> tokenStats() {
+        return ResponseEntity.ok(jwtVerifier.stats());
+    }
+
+    public record KeyRequest(String consumer, List<String> routes, List<String> groups) {
+    }
+}
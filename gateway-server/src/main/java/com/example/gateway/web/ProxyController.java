@@ -1,41 +1,96 @@
 package com.example.gateway.web;
 
+import com.example.gateway.config.GatewayProperties;
 import com.example.gateway.model.RouteRule;
-import com.example.gateway.model.RuleSnapshot;
-import com.example.gateway.service.RouteMatcher;
+import com.example.gateway.service.CompiledRoute;
 import com.example.gateway.service.RuleService;
+import com.example.gateway.service.TrafficSplit;
+import com.example.gateway.service.cache.CachePolicy;
+import com.example.gateway.service.cache.CachedResponse;
+import com.example.gateway.service.cache.CoalescePolicy;
+import com.example.gateway.service.cache.RequestCoalescer;
+import com.example.gateway.service.filter.FilterChain;
+import com.example.gateway.service.filter.FilterContext;
+import com.example.gateway.service.filter.HmacAuthFilterFactory;
+import com.example.gateway.service.filter.Rejection;
+import com.example.gateway.service.cache.ResponseCache;
+import com.example.gateway.service.metrics.RouteMetrics;
+import com.example.gateway.service.upstream.BodyLimits;
+import com.example.gateway.service.upstream.CircuitBreaker;
+import com.example.gateway.service.upstream.RetryBudget;
+import com.example.gateway.service.upstream.RetryPolicy;
+import com.example.gateway.service.upstream.UpstreamEndpoint;
+import com.example.gateway.service.upstream.UpstreamLimits;
+import com.example.gateway.service.upstream.UpstreamPoolRegistry;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.Exceptions;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.retry.Retry;
 
 import java.net.URI;
-import java.util.List;
-import java.util.Locale;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 public class ProxyController {
-    private final WebClient webClient;
+    private static final String[] HOP_BY_HOP_HEADERS = {
+            HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+            HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE
+    };
+
+    private static final String[] CONDITIONAL_HEADERS = {
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_MATCH,
+            HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.IF_RANGE, HttpHeaders.RANGE
+    };
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final byte[] NO_BODY = new byte[0];
+
+    private final UpstreamPoolRegistry upstreamPools;
     private final RuleService ruleService;
-    private final RouteMatcher matcher;
     private final com.example.gateway.service.RouteMetricsService metricsService;
-    private final RateLimiter rateLimiter = new RateLimiter();
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final RetryBudget retryBudget;
+    private final long replayMaxBytes;
+    private final long hedgeMinDelayMs;
 
-    public ProxyController(WebClient webClient, RuleService ruleService, RouteMatcher matcher,
-                           com.example.gateway.service.RouteMetricsService metricsService) {
-        this.webClient = webClient;
+    public ProxyController(UpstreamPoolRegistry upstreamPools, RuleService ruleService,
+                           com.example.gateway.service.RouteMetricsService metricsService,
+                           ResponseCache responseCache, RequestCoalescer requestCoalescer, RetryBudget retryBudget,
+                           GatewayProperties properties) {
+        this.upstreamPools = upstreamPools;
         this.ruleService = ruleService;
-        this.matcher = matcher;
         this.metricsService = metricsService;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.retryBudget = retryBudget;
+        this.replayMaxBytes = Math.min(Integer.MAX_VALUE, properties.getRetry().getReplayMaxBytes());
+        this.hedgeMinDelayMs = properties.getRetry().getHedgeMinDelayMs();
     }
 
     @RequestMapping("/**")
@@ -50,173 +105,645 @@ public class ProxyController {
         String method = exchange.getRequest().getMethod() != null
                 ? exchange.getRequest().getMethod().name()
                 : "GET";
-        RouteRule route = matchRoute(path, method);
-        if (route == null) {
+        CompiledRoute compiled = matchRoute(path, method);
+        if (compiled == null) {
             return writeJson(exchange.getResponse(), HttpStatus.NOT_FOUND, "{\"error\":\"未匹配到路由规则\"}");
         }
-        if (route.getEnabled() != null && !route.getEnabled()) {
-            return writeJson(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, "{\"error\":\"该规则已禁用\"}");
+        RouteRule route = compiled.rule();
+        RouteMetrics routeMetrics;
+        TrafficSplit split = compiled.split();
+        if (split == null) {
+            routeMetrics = metricsService.metrics(route.getId());
+        } else {
+            int variant = split.select(exchange.getRequest());
+            compiled = split.route(variant);
+            routeMetrics = metricsService.variantMetrics(route.getId(), split.metricsKey(variant));
+            exchange.getResponse().getHeaders().set(TrafficSplit.VARIANT_HEADER, split.name(variant));
         }
-        String authError = validateAuth(route, exchange.getRequest());
-        if (authError != null) {
-            return writeJson(exchange.getResponse(), HttpStatus.UNAUTHORIZED,
-                    "{\"error\":\"" + authError + "\"}");
+        if (route.getEnabled() != null && !route.getEnabled()) {
+            return reject(exchange, routeMetrics, HttpStatus.SERVICE_UNAVAILABLE, "{\"error\":\"该规则已禁用\"}");
         }
-        if (!rateLimiter.tryAcquire(route)) {
-            return writeJson(exchange.getResponse(), HttpStatus.TOO_MANY_REQUESTS,
-                    "{\"error\":\"触发限流\"}");
+        if (exchange.getRequest().getMethod() == null) {
+            return reject(exchange, routeMetrics, HttpStatus.BAD_REQUEST, "{\"error\":\"未知请求方法\"}");
         }
 
+        FilterChain filters = compiled.filters();
+        if (!filters.isEmpty()) {
+            FilterContext context = new FilterContext(exchange, compiled);
+            Rejection rejection = filters.pre(context);
+            if (rejection != null) {
+                return reject(exchange, routeMetrics, rejection.status(), rejection.body());
+            }
+            exchange = context.exchange();
+            exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> filters.post(context)));
+        }
         ServerHttpRequest request = exchange.getRequest();
-        if (request.getMethod() == null) {
-            return writeJson(exchange.getResponse(), HttpStatus.BAD_REQUEST, "{\"error\":\"未知请求方法\"}");
+
+        routeMetrics.recordHit();
+        CachePolicy cache = compiled.cache();
+        if (cache != null && request.getMethod() == HttpMethod.GET
+                && !hasDirective(request.getHeaders(), "no-store")) {
+            return proxyCached(exchange, compiled, cache, routeMetrics);
         }
+        CoalescePolicy coalesce = compiled.coalesce();
+        if (coalesce != null && request.getMethod() == HttpMethod.GET) {
+            return proxyCoalesced(exchange, compiled, coalesce, routeMetrics);
+        }
+        RetryPolicy retry = compiled.retry();
+        if (retry != null) {
+            retryBudget.onRequest();
+            if (RetryPolicy.idempotent(request.getMethod(), request.getHeaders())
+                    && replayable(request.getMethod(), request.getHeaders())) {
+                return forwardRetrying(exchange, compiled, retry, routeMetrics);
+            }
+        }
+        return forward(exchange, compiled, routeMetrics);
+    }
 
-        String forwardPath = applyRewrite(route, path);
+    private Mono<Void> forward(ServerWebExchange exchange, CompiledRoute compiled, RouteMetrics routeMetrics) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        UpstreamLimits limits = compiled.limits();
+        UpstreamEndpoint endpoint = compiled.upstreams().acquire();
+        if (endpoint == null) {
+            return reject(exchange, routeMetrics, HttpStatus.SERVICE_UNAVAILABLE, "{\"error\":\"上游熔断\"}");
+        }
         URI target;
         try {
-            target = buildTargetUri(route.getTarget(), forwardPath, exchange.getRequest().getURI().getRawQuery());
+            target = endpoint.plan().targetUri(path, request.getURI().getRawQuery());
         } catch (IllegalArgumentException ex) {
-            return writeJson(exchange.getResponse(), HttpStatus.BAD_REQUEST,
+            endpoint.breaker().release();
+            return reject(exchange, routeMetrics, HttpStatus.BAD_REQUEST,
                     "{\"error\":\"目标地址非法\",\"detail\":\"" + ex.getMessage() + "\"}");
         }
 
-        metricsService.recordHit(route.getId());
-        return webClient.method(request.getMethod())
+        long start = System.nanoTime();
+        long[] headersAfter = new long[1];
+        Mono<Void> forward = upstreamPools.client(endpoint.plan(), limits.protocol())
+                .method(request.getMethod())
                 .uri(target)
-                .headers(headers -> copyHeaders(request.getHeaders(), headers))
-                .body(BodyInserters.fromDataBuffers(request.getBody()))
+                .headers(headers -> copyRequestHeaders(request.getHeaders(), headers))
+                .httpRequest(clientRequest -> clientRequest.<HttpClientRequest>getNativeRequest()
+                        .responseTimeout(limits.firstByte()))
+                .body(BodyInserters.fromDataBuffers(BodyLimits.limit(request.getBody(), limits.maxBodyBytes())
+                        .doOnNext(buffer -> routeMetrics.recordBytesIn(buffer.readableByteCount()))
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)))
                 .exchangeToMono(clientResponse -> {
+                    long elapsed = System.nanoTime() - start;
+                    headersAfter[0] = elapsed;
+                    routeMetrics.recordLatency(elapsed);
+                    endpoint.recordLatency(elapsed);
                     ServerHttpResponse response = exchange.getResponse();
                     response.setStatusCode(clientResponse.statusCode());
-                    response.getHeaders().putAll(clientResponse.headers().asHttpHeaders());
-                    return response.writeWith(clientResponse.bodyToFlux(DataBuffer.class)
-                            .timeout(java.time.Duration.ofMillis(resolveTimeout(route))));
+                    copyResponseHeaders(clientResponse.headers().asHttpHeaders(), response.getHeaders());
+                    Flux<DataBuffer> body = clientResponse.bodyToFlux(DataBuffer.class)
+                            .timeout(limits.firstByte())
+                            .doOnNext(buffer -> routeMetrics.recordBytesOut(buffer.readableByteCount()))
+                            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+                    if (MediaType.TEXT_EVENT_STREAM.isCompatibleWith(response.getHeaders().getContentType())) {
+                        return response.writeAndFlushWith(body.map(Mono::just));
+                    }
+                    return response.writeWith(body);
                 })
-                .onErrorResume(java.util.concurrent.TimeoutException.class, error ->
-                        writeJson(exchange.getResponse(), HttpStatus.GATEWAY_TIMEOUT,
-                                "{\"error\":\"上游超时\"}"))
-                .onErrorResume(error ->
-                        writeJson(exchange.getResponse(), HttpStatus.BAD_GATEWAY,
-                                "{\"error\":\"转发失败\",\"detail\":\"" + error.getMessage() + "\"}"));
-    }
-
-    private RouteRule matchRoute(String path, String method) {
-        RuleSnapshot snapshot = ruleService.getSnapshot();
-        for (RouteRule route : snapshot.getRoutes()) {
-            if (route.getMethods() != null && !route.getMethods().isEmpty()) {
-                String upper = method.toUpperCase(Locale.ROOT);
-                List<String> methods = route.getMethods().stream()
-                        .map(item -> item.toUpperCase(Locale.ROOT))
-                        .toList();
-                if (!methods.contains(upper)) {
-                    continue;
-                }
-            }
-            if (matcher.matches(route.getPath(), path)) {
-                return route;
-            }
+                .contextWrite(UpstreamPoolRegistry::markAcquireStart);
+        if (limits.total() != null) {
+            forward = forward.timeout(limits.total());
         }
-        return null;
+        return forward
+                .doOnSubscribe(subscription -> endpoint.start())
+                .onErrorResume(error -> {
+                    endpoint.recordFailure(System.nanoTime() - start);
+                    return handleForwardError(exchange, error);
+                })
+                .doFinally(signal -> {
+                    endpoint.finish();
+                    int status = statusOf(exchange.getResponse());
+                    if (headersAfter[0] == 0 && signal == SignalType.CANCEL) {
+                        // the client left before the upstream answered; no verdict on the endpoint
+                        endpoint.breaker().release();
+                    } else {
+                        endpoint.complete(headersAfter[0] > 0 ? headersAfter[0] : System.nanoTime() - start,
+                                status >= 500);
+                    }
+                    routeMetrics.recordStatus(status);
+                });
     }
 
-    private String applyRewrite(RouteRule route, String path) {
-        if (StringUtils.hasText(route.getRewrite())) {
-            String rewrite = route.getRewrite();
-            if (rewrite.contains("$1")) {
-                String remainder = matcher.extractPath(route.getPath(), path);
-                return rewrite.replace("$1", remainder);
-            }
-            return rewrite;
+    /**
+     * Whether the request body fits the replay buffer: a declared length within
+     * {@code gateway.retry.replay-max-bytes}, or a method that carries no body. Bodies of unknown length (chunked
+     * uploads, HTTP/2 requests without {@code Content-Length}) go through a single attempt.
+     */
+    private boolean replayable(HttpMethod method, HttpHeaders headers) {
+        if (headers.containsKey(HttpHeaders.TRANSFER_ENCODING)) {
+            return false;
+        }
+        long length = headers.getContentLength();
+        if (length >= 0) {
+            return length <= replayMaxBytes;
+        }
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS
+                || method == HttpMethod.TRACE;
+    }
+
+    /**
+     * Forwards an idempotent request under the route's {@link RetryPolicy}. The body is read into a replay buffer
+     * first so every attempt sends the same bytes; only the response finally chosen is streamed to the client.
+     * Each retry and hedge is drawn from the {@link RetryBudget}, and the route's total timeout covers all
+     * attempts. A reply that is never written, a hedge loser dropped by {@link Mono#firstWithValue} or one
+     * answered just before a timeout or client disconnect, is drained so its connection and endpoint are freed.
+     */
+    private Mono<Void> forwardRetrying(ServerWebExchange exchange, CompiledRoute compiled, RetryPolicy policy,
+                                       RouteMetrics routeMetrics) {
+        ServerHttpRequest request = exchange.getRequest();
+        UpstreamLimits limits = compiled.limits();
+        AtomicReference<UpstreamReply> chosen = new AtomicReference<>();
+        AtomicBoolean written = new AtomicBoolean();
+        Mono<Void> forward = DataBufferUtils.join(BodyLimits.limit(request.getBody(), limits.maxBodyBytes()),
+                        (int) replayMaxBytes)
+                .onErrorMap(DataBufferLimitException.class,
+                        ex -> new BodyLimits.PayloadTooLargeException(replayMaxBytes))
+                .map(ProxyController::toBytes)
+                .defaultIfEmpty(NO_BODY)
+                .flatMap(body -> {
+                    if (body.length > 0) {
+                        routeMetrics.recordBytesIn(body.length);
+                    }
+                    return call(request, compiled, policy, body, routeMetrics);
+                })
+                .flatMap(reply -> {
+                    chosen.set(reply);
+                    ServerHttpResponse response = exchange.getResponse();
+                    response.setStatusCode(reply.status());
+                    copyResponseHeaders(reply.headers(), response.getHeaders());
+                    Flux<DataBuffer> body = reply.body()
+                            .doOnSubscribe(subscription -> written.set(true))
+                            .doOnNext(buffer -> routeMetrics.recordBytesOut(buffer.readableByteCount()))
+                            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+                    if (MediaType.TEXT_EVENT_STREAM.isCompatibleWith(response.getHeaders().getContentType())) {
+                        return response.writeAndFlushWith(body.map(Mono::just));
+                    }
+                    return response.writeWith(body);
+                })
+                .doOnDiscard(UpstreamReply.class, reply -> {
+                    if (reply != chosen.get()) {
+                        reply.discard().subscribe();
+                    }
+                })
+                .doFinally(signal -> {
+                    UpstreamReply reply = chosen.get();
+                    if (reply != null && !written.getAndSet(true)) {
+                        reply.discard().subscribe();
+                    }
+                });
+        if (limits.total() != null) {
+            forward = forward.timeout(limits.total());
         }
-        if (route.getStripPrefix() != null && route.getStripPrefix() > 0) {
-            String[] parts = StringUtils.tokenizeToStringArray(path, "/");
-            if (route.getStripPrefix() >= parts.length) {
-                return "/";
+        return forward
+                .onErrorResume(error -> handleForwardError(exchange, error))
+                .doFinally(signal -> routeMetrics.recordStatus(statusOf(exchange.getResponse())));
+    }
+
+    /**
+     * Repeats hedged rounds until one yields a response that is not retried. A response with a retryable status
+     * is drained and turned into an error here, after its retry has been admitted, so that the last one
+     * allowed is passed on as it is.
+     */
+    private Mono<UpstreamReply> call(ServerHttpRequest request, CompiledRoute compiled, RetryPolicy policy,
+                                     byte[] body, RouteMetrics routeMetrics) {
+        AtomicInteger started = new AtomicInteger();
+        return Mono.defer(() -> hedged(request, compiled, policy, body, routeMetrics, started))
+                .flatMap(reply -> {
+                    if (policy.retryOn(reply.status().value()) && started.get() < policy.maxAttempts()
+                            && retryBudget.tryRetry()) {
+                        return reply.discard().then(Mono.error(new RetryableStatusException()));
+                    }
+                    return Mono.just(reply);
+                })
+                .retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                    Throwable error = signal.failure();
+                    if (!(error instanceof RetryableStatusException) && (!retryable(error)
+                            || started.get() >= policy.maxAttempts() || !retryBudget.tryRetry())) {
+                        return Mono.error(error);
+                    }
+                    long pause = policy.backoffMillis((int) signal.totalRetries() + 1);
+                    return pause == 0L ? Mono.just(0L) : Mono.delay(Duration.ofMillis(pause));
+                })));
+    }
+
+    /**
+     * One round of a request: a single attempt, or with hedging a second one started if the first has not
+     * answered within the hedge delay. The first response wins and the other attempt is cancelled; a first
+     * attempt that fails before the hedge starts fails the round at once.
+     */
+    private Mono<UpstreamReply> hedged(ServerHttpRequest request, CompiledRoute compiled, RetryPolicy policy,
+                                       byte[] body, RouteMetrics routeMetrics, AtomicInteger started) {
+        Mono<UpstreamReply> first = attempt(request, compiled, body, routeMetrics, started, false);
+        long delay = policy.hedge() ? hedgeDelayMillis(policy, routeMetrics) : 0L;
+        if (delay <= 0L || started.get() + 1 >= policy.maxAttempts()) {
+            return first;
+        }
+        Sinks.One<Boolean> firstFailed = Sinks.one();
+        Mono<UpstreamReply> hedge = Mono.delay(Duration.ofMillis(delay))
+                .takeUntilOther(firstFailed.asMono())
+                .filter(tick -> started.get() < policy.maxAttempts() && retryBudget.tryHedge())
+                .flatMap(tick -> attempt(request, compiled, body, routeMetrics, started, true));
+        return Mono.firstWithValue(first.doOnError(error -> firstFailed.tryEmitValue(Boolean.TRUE)), hedge)
+                .onErrorMap(NoSuchElementException.class, ProxyController::firstFailure)
+                .doOnNext(reply -> {
+                    if (reply.hedge()) {
+                        retryBudget.onHedgeWin();
+                    }
+                });
+    }
+
+    /**
+     * The route's fixed hedge delay, or its recent p95 latency but at least {@code gateway.retry.hedge-min-delay-ms};
+     * zero, meaning no hedge, until the route has enough latency samples.
+     */
+    private long hedgeDelayMillis(RetryPolicy policy, RouteMetrics routeMetrics) {
+        if (policy.hedgeDelayMs() > 0L) {
+            return policy.hedgeDelayMs();
+        }
+        long p95 = routeMetrics.recentP95Micros() / 1000L;
+        return p95 == 0L ? 0L : Math.max(p95, hedgeMinDelayMs);
+    }
+
+    /**
+     * One upstream call, emitting once response headers arrive. The endpoint counts as busy until the response
+     * body has been streamed or drained; a call cancelled before it was answered leaves no verdict on the
+     * breaker.
+     */
+    private Mono<UpstreamReply> attempt(ServerHttpRequest request, CompiledRoute compiled, byte[] body,
+                                        RouteMetrics routeMetrics, AtomicInteger started, boolean hedge) {
+        return Mono.defer(() -> {
+            UpstreamEndpoint endpoint = compiled.upstreams().acquire();
+            if (endpoint == null) {
+                return Mono.error(new CircuitBreaker.CallNotPermittedException());
             }
-            StringBuilder builder = new StringBuilder();
-            for (int i = route.getStripPrefix(); i < parts.length; i++) {
-                builder.append("/").append(parts[i]);
+            URI target;
+            try {
+                target = endpoint.plan().targetUri(request.getPath().value(), request.getURI().getRawQuery());
+            } catch (IllegalArgumentException ex) {
+                endpoint.breaker().release();
+                return Mono.error(ex);
+            }
+            started.incrementAndGet();
+            UpstreamLimits limits = compiled.limits();
+            long start = System.nanoTime();
+            boolean[] answered = new boolean[1];
+            AtomicBoolean finished = new AtomicBoolean();
+            WebClient.RequestBodySpec spec = upstreamPools.client(endpoint.plan(), limits.protocol())
+                    .method(request.getMethod())
+                    .uri(target)
+                    .headers(headers -> copyRequestHeaders(request.getHeaders(), headers))
+                    .httpRequest(clientRequest -> clientRequest.<HttpClientRequest>getNativeRequest()
+                            .responseTimeout(limits.firstByte()));
+            WebClient.RequestHeadersSpec<?> call = body.length == 0 ? spec : spec.bodyValue(body);
+            return call.retrieve()
+                    .onStatus(status -> true, response -> Mono.empty())
+                    .toEntityFlux(DataBuffer.class)
+                    .contextWrite(UpstreamPoolRegistry::markAcquireStart)
+                    .map(entity -> {
+                        long elapsed = System.nanoTime() - start;
+                        answered[0] = true;
+                        routeMetrics.recordLatency(elapsed);
+                        endpoint.recordLatency(elapsed);
+                        endpoint.complete(elapsed, entity.getStatusCode().value() >= 500);
+                        Flux<DataBuffer> replyBody = entity.getBody()
+                                .timeout(limits.firstByte())
+                                .doFinally(signal -> {
+                                    if (finished.compareAndSet(false, true)) {
+                                        endpoint.finish();
+                                    }
+                                });
+                        return new UpstreamReply(entity.getStatusCode(), entity.getHeaders(), replyBody, hedge);
+                    })
+                    .doOnSubscribe(subscription -> endpoint.start())
+                    .doOnError(error -> {
+                        long elapsed = System.nanoTime() - start;
+                        endpoint.recordFailure(elapsed);
+                        endpoint.complete(elapsed, true);
+                        endpoint.finish();
+                    })
+                    .doOnCancel(() -> {
+                        if (!answered[0]) {
+                            endpoint.breaker().release();
+                            endpoint.finish();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Failures before an answer that another attempt may not repeat: a connection error, a reset or a first-byte
+     * timeout. An open breaker, a bad target or an oversized or tampered body would fail the same way again.
+     */
+    private static boolean retryable(Throwable error) {
+        return !(error instanceof CircuitBreaker.CallNotPermittedException)
+                && !(error instanceof IllegalArgumentException)
+                && !hasCause(error, BodyLimits.PayloadTooLargeException.class)
+                && !hasCause(error, HmacAuthFilterFactory.ContentDigestMismatchException.class);
+    }
+
+    /**
+     * {@link Mono#firstWithValue} fails with a {@link NoSuchElementException} once every source has failed or
+     * completed empty; the first real failure among its causes is the one to report.
+     */
+    private static Throwable firstFailure(NoSuchElementException error) {
+        if (error.getCause() != null) {
+            for (Throwable cause : Exceptions.unwrapMultiple(error.getCause())) {
+                if (!(cause instanceof NoSuchElementException)) {
+                    return cause;
+                }
             }
-            return builder.toString();
         }
-        return path;
+        return error;
     }
 
-    private URI buildTargetUri(String target, String path, String query) {
-        String base = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
-        String normalizedPath = path.startsWith("/") ? path : "/" + path;
-        String uri = base + normalizedPath;
-        if (StringUtils.hasText(query)) {
-            uri += "?" + query;
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
         }
-        return URI.create(uri);
     }
 
-    private void copyHeaders(HttpHeaders source, HttpHeaders target) {
-        target.addAll(source);
-        target.remove(HttpHeaders.HOST);
+    /**
+     * Serves a cacheable {@code GET} from {@link ResponseCache}, fetching and buffering it on a miss. Responses
+     * over the route's entry size are streamed through {@link #forward} instead, and so is every request for
+     * such a key while it is remembered as oversized.
+     */
+    private Mono<Void> proxyCached(ServerWebExchange exchange, CompiledRoute compiled, CachePolicy policy,
+                                   RouteMetrics routeMetrics) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = policy.key(request.getPath().value(), request.getURI().getRawQuery(), request.getHeaders());
+        if (responseCache.isOversized(key)) {
+            return forward(exchange, compiled, routeMetrics);
+        }
+        CachedResponse cached = hasDirective(request.getHeaders(), "no-cache") ? null : responseCache.get(key);
+        if (cached != null) {
+            return writeBuffered(exchange, cached, "HIT", routeMetrics);
+        }
+        return responseCache.load(policy, key,
+                        () -> fetch(request, compiled, policy, policy.maxEntryBytes(), routeMetrics))
+                .flatMap(response -> writeBuffered(exchange, response, "MISS", routeMetrics))
+                .onErrorResume(DataBufferLimitException.class, ex -> {
+                    responseCache.markOversized(key);
+                    return forward(exchange, compiled, routeMetrics);
+                })
+                .onErrorResume(error -> handleForwardError(exchange, error)
+                        .doFinally(signal -> routeMetrics.recordStatus(statusOf(exchange.getResponse()))));
     }
 
-    private Mono<Void> writeJson(ServerHttpResponse response, HttpStatus status, String body) {
-        response.setStatusCode(status);
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    /**
+     * Shares one upstream call among identical concurrent {@code GET}s of a coalescing route; each request then
+     * writes its own view of the single buffered body.
+     */
+    private Mono<Void> proxyCoalesced(ServerWebExchange exchange, CompiledRoute compiled, CoalescePolicy policy,
+                                      RouteMetrics routeMetrics) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = policy.key(request.getMethod().name(), request.getPath().value(),
+                request.getURI().getRawQuery(), request.getHeaders());
+        if (requestCoalescer.isOversized(key)) {
+            return forward(exchange, compiled, routeMetrics);
+        }
+        return requestCoalescer.execute(policy, key,
+                        () -> fetch(request, compiled, null, requestCoalescer.maxBodyBytes(), routeMetrics))
+                .flatMap(response -> writeBuffered(exchange, response, null, routeMetrics))
+                .onErrorResume(DataBufferLimitException.class, ex -> {
+                    requestCoalescer.markOversized(key);
+                    return forward(exchange, compiled, routeMetrics);
+                })
+                .onErrorResume(error -> handleForwardError(exchange, error)
+                        .doFinally(signal -> routeMetrics.recordStatus(statusOf(exchange.getResponse()))));
+    }
+
+    /**
+     * Reads one upstream {@code GET} fully into a {@link CachedResponse}, failing with
+     * {@link DataBufferLimitException} past {@code maxBytes}. A {@code null} cache policy fetches for sharing
+     * only.
+     */
+    private Mono<CachedResponse> fetch(ServerHttpRequest request, CompiledRoute compiled, CachePolicy policy,
+                                       long maxBytes, RouteMetrics routeMetrics) {
+        UpstreamEndpoint endpoint = compiled.upstreams().acquire();
+        if (endpoint == null) {
+            return Mono.error(new CircuitBreaker.CallNotPermittedException());
+        }
+        URI target;
+        try {
+            target = endpoint.plan().targetUri(request.getPath().value(), request.getURI().getRawQuery());
+        } catch (IllegalArgumentException ex) {
+            endpoint.breaker().release();
+            return Mono.error(ex);
+        }
+        UpstreamLimits limits = compiled.limits();
+        long start = System.nanoTime();
+        long[] headersAfter = new long[1];
+        boolean[] failed = new boolean[1];
+        Mono<CachedResponse> fetch = upstreamPools.client(endpoint.plan(), limits.protocol())
+                .get()
+                .uri(target)
+                .headers(headers -> {
+                    copyRequestHeaders(request.getHeaders(), headers);
+                    // the fetched response is stored and shared, so it must be a full one
+                    for (String name : CONDITIONAL_HEADERS) {
+                        headers.remove(name);
+                    }
+                })
+                .httpRequest(clientRequest -> clientRequest.<HttpClientRequest>getNativeRequest()
+                        .responseTimeout(limits.firstByte()))
+                .exchangeToMono(clientResponse -> {
+                    long elapsed = System.nanoTime() - start;
+                    headersAfter[0] = elapsed;
+                    routeMetrics.recordLatency(elapsed);
+                    endpoint.recordLatency(elapsed);
+                    int status = clientResponse.statusCode().value();
+                    failed[0] = status >= 500;
+                    HttpHeaders headers = new HttpHeaders();
+                    copyResponseHeaders(clientResponse.headers().asHttpHeaders(), headers);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return DataBufferUtils.join(clientResponse.bodyToFlux(DataBuffer.class)
+                                    .timeout(limits.firstByte()), (int) Math.min(Integer.MAX_VALUE, maxBytes))
+                            .map(ProxyController::toDirect)
+                            .defaultIfEmpty(ByteBuffer.allocateDirect(0))
+                            .map(body -> CachedResponse.of(policy, status, headers, body));
+                })
+                .contextWrite(UpstreamPoolRegistry::markAcquireStart);
+        if (limits.total() != null) {
+            fetch = fetch.timeout(limits.total());
+        }
+        return fetch
+                .doOnSubscribe(subscription -> endpoint.start())
+                .doOnError(error -> {
+                    if (!(error instanceof DataBufferLimitException)) {
+                        failed[0] = true;
+                        endpoint.recordFailure(System.nanoTime() - start);
+                    }
+                })
+                .doFinally(signal -> {
+                    endpoint.finish();
+                    if (headersAfter[0] == 0 && signal == SignalType.CANCEL) {
+                        endpoint.breaker().release();
+                    } else {
+                        endpoint.complete(headersAfter[0] > 0 ? headersAfter[0] : System.nanoTime() - start,
+                                failed[0]);
+                    }
+                });
     }
 
-    private int resolveTimeout(RouteRule route) {
-        Integer timeoutMs = route.getTimeoutMs();
-        if (timeoutMs == null || timeoutMs <= 0) {
-            return 3000;
+    private static ByteBuffer toDirect(DataBuffer buffer) {
+        try {
+            ByteBuffer body = ByteBuffer.allocateDirect(buffer.readableByteCount());
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    body.put(iterator.next());
+                }
+            }
+            return body.flip();
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private Mono<Void> writeBuffered(ServerWebExchange exchange, CachedResponse cached, String cacheStatus,
+                                     RouteMetrics routeMetrics) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        if (cacheStatus != null) {
+            headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        }
+        if ("HIT".equals(cacheStatus)) {
+            headers.set(HttpHeaders.AGE, String.valueOf(cached.ageSeconds()));
         }
-        return timeoutMs;
+        if (cached.notModified(exchange.getRequest().getHeaders())) {
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            routeMetrics.recordStatus(HttpStatus.NOT_MODIFIED.value());
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        headers.setContentLength(cached.length());
+        routeMetrics.recordStatus(cached.status());
+        routeMetrics.recordBytesOut(cached.length());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
     }
 
-    private String validateAuth(RouteRule route, ServerHttpRequest request) {
-        if (!StringUtils.hasText(route.getAuthType())) {
-            return null;
+    private static boolean hasDirective(HttpHeaders headers, String directive) {
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String part : value.split(",")) {
+                if (part.trim().equalsIgnoreCase(directive)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> handleForwardError(ServerWebExchange exchange, Throwable error) {
+        if (exchange.getResponse().isCommitted()) {
+            // headers are already on the wire; abort the connection rather than append an error body
+            return Mono.error(error);
+        }
+        if (error instanceof CircuitBreaker.CallNotPermittedException) {
+            return writeJson(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, "{\"error\":\"上游熔断\"}");
         }
-        if ("apiKey".equalsIgnoreCase(route.getAuthType())) {
-            String apiKey = request.getHeaders().getFirst("X-API-Key");
-            if (!StringUtils.hasText(apiKey) || !apiKey.equals(route.getApiKey())) {
-                return "API Key 无效";
+        if (error instanceof IllegalArgumentException) {
+            return writeJson(exchange.getResponse(), HttpStatus.BAD_REQUEST,
+                    "{\"error\":\"目标地址非法\",\"detail\":\"" + error.getMessage() + "\"}");
+        }
+        if (hasCause(error, BodyLimits.PayloadTooLargeException.class)) {
+            return writeJson(exchange.getResponse(), HttpStatus.PAYLOAD_TOO_LARGE, "{\"error\":\"请求体过大\"}");
+        }
+        if (hasCause(error, HmacAuthFilterFactory.ContentDigestMismatchException.class)) {
+            return writeJson(exchange.getResponse(), HttpStatus.UNAUTHORIZED, "{\"error\":\"请求体摘要不匹配\"}");
+        }
+        if (hasCause(error, TimeoutException.class) || hasCause(error, ReadTimeoutException.class)
+                || hasCause(error, ConnectTimeoutException.class)) {
+            return writeJson(exchange.getResponse(), HttpStatus.GATEWAY_TIMEOUT, "{\"error\":\"上游超时\"}");
+        }
+        return writeJson(exchange.getResponse(), HttpStatus.BAD_GATEWAY,
+                "{\"error\":\"转发失败\",\"detail\":\"" + error.getMessage() + "\"}");
+    }
+
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
             }
         }
-        return null;
+        return false;
+    }
+
+    private CompiledRoute matchRoute(String path, String method) {
+        return ruleService.getRouteTable().match(path, method);
+    }
+
+    private void copyRequestHeaders(HttpHeaders source, HttpHeaders target) {
+        source.forEach((name, values) -> {
+            if (!isHopByHop(name) && !HttpHeaders.HOST.equalsIgnoreCase(name)) {
+                target.addAll(name, values);
+            }
+        });
     }
 
-    private static final class RateLimiter {
-        private final java.util.concurrent.ConcurrentHashMap<String, WindowCounter> counters =
-                new java.util.concurrent.ConcurrentHashMap<>();
+    private void copyResponseHeaders(HttpHeaders source, HttpHeaders target) {
+        source.forEach((name, values) -> {
+            if (!isHopByHop(name)) {
+                target.put(name, values);
+            }
+        });
+    }
 
-        boolean tryAcquire(RouteRule route) {
-            Integer limit = route.getRateLimitQps();
-            if (limit == null || limit <= 0) {
+    private static boolean isHopByHop(String name) {
+        for (String header : HOP_BY_HOP_HEADERS) {
+            if (header.equalsIgnoreCase(name)) {
                 return true;
             }
-            String key = route.getId();
-            long now = System.currentTimeMillis() / 1000;
-            WindowCounter counter = counters.computeIfAbsent(key, k -> new WindowCounter(now));
-            return counter.incrementAndCheck(now, limit);
         }
+        return false;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, RouteMetrics routeMetrics, HttpStatus status, String body) {
+        routeMetrics.recordStatus(status.value());
+        return writeJson(exchange.getResponse(), status, body);
+    }
+
+    private int statusOf(ServerHttpResponse response) {
+        return response.getStatusCode() == null ? HttpStatus.OK.value() : response.getStatusCode().value();
+    }
+
+    private Mono<Void> writeJson(ServerHttpResponse response, HttpStatus status, String body) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
     }
 
-    private static final class WindowCounter {
-        private long windowSecond;
-        private int count;
+    /**
+     * An upstream response whose headers have arrived and whose body has not been read yet.
+     */
+    private record UpstreamReply(HttpStatusCode status, HttpHeaders headers, Flux<DataBuffer> body, boolean hedge) {
 
-        private WindowCounter(long windowSecond) {
-            this.windowSecond = windowSecond;
-            this.count = 0;
+        /**
+         * Reads and drops a response that will not be written, so its connection can be reused.
+         */
+        Mono<Void> discard() {
+            return body.doOnNext(DataBufferUtils::release).then().onErrorResume(error -> Mono.empty());
         }
+    }
 
-        synchronized boolean incrementAndCheck(long currentSecond, int limit) {
-            if (currentSecond != windowSecond) {
-                windowSecond = currentSecond;
-                count = 0;
-            }
-            count++;
-            return count <= limit;
+    /**
+     * Signals that a response was answered with a retryable status and its retry has been admitted.
+     */
+    private static final class RetryableStatusException extends RuntimeException {
+        RetryableStatusException() {
+            super(null, null, false, false);
         }
     }
 }
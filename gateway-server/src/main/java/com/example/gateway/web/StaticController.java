@@ -1,32 +1,97 @@
 package com.example.gateway.web;
 
+import com.example.gateway.config.GatewayProperties;
+import com.example.gateway.service.compression.Gzip;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Serves the admin console. The three assets are read and gzipped once at startup; each form carries a strong
+ * ETag derived from its bytes, so browsers revalidate with {@code If-None-Match} and get a {@code 304}.
+ */
 @RestController
 public class StaticController {
+    private final Asset index;
+    private final Asset app;
+    private final Asset styles;
+
+    public StaticController(GatewayProperties properties) {
+        int level = properties.getCompression().getLevel();
+        this.index = Asset.load("static/index.html", MediaType.TEXT_HTML, level);
+        this.app = Asset.load("static/app.js", MediaType.valueOf("application/javascript"), level);
+        this.styles = Asset.load("static/styles.css", MediaType.valueOf("text/css"), level);
+    }
+
     @GetMapping("/")
-    public ResponseEntity<Resource> index() {
-        return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_HTML)
-                .body(new ClassPathResource("static/index.html"));
+    public ResponseEntity<byte[]> index(@RequestHeader HttpHeaders headers) {
+        return index.serve(headers);
     }
 
     @GetMapping("/app.js")
-    public ResponseEntity<Resource> app() {
-        return ResponseEntity.ok()
-                .contentType(MediaType.valueOf("application/javascript"))
-                .body(new ClassPathResource("static/app.js"));
+    public ResponseEntity<byte[]> app(@RequestHeader HttpHeaders headers) {
+        return app.serve(headers);
     }
 
     @GetMapping("/styles.css")
-    public ResponseEntity<Resource> styles() {
-        return ResponseEntity.ok()
-                .contentType(MediaType.valueOf("text/css"))
-                .body(new ClassPathResource("static/styles.css"));
+    public ResponseEntity<byte[]> styles(@RequestHeader HttpHeaders headers) {
+        return styles.serve(headers);
+    }
+
+    private record Asset(MediaType type, byte[] plain, String plainTag, byte[] gzipped, String gzipTag) {
+
+        static Asset load(String path, MediaType type, int level) {
+            byte[] plain;
+            try (InputStream in = new ClassPathResource(path).getInputStream()) {
+                plain = in.readAllBytes();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot read " + path, ex);
+            }
+            byte[] gzipped = Gzip.compress(plain, level);
+            String tag = digest(plain);
+            return new Asset(type, plain, "\"" + tag + "\"", gzipped, "\"" + tag + "-gz\"");
+        }
+
+        ResponseEntity<byte[]> serve(HttpHeaders request) {
+            boolean gzip = gzipped.length < plain.length && Gzip.accepted(request);
+            String etag = gzip ? gzipTag : plainTag;
+            boolean notModified = request.getIfNoneMatch().stream()
+                    .anyMatch(value -> value.equals(etag) || value.equals("*"));
+            ResponseEntity.BodyBuilder response = ResponseEntity
+                    .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (notModified) {
+                return response.build();
+            }
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, Gzip.CODING);
+            }
+            return response.contentType(type).body(gzip ? gzipped : plain);
+        }
+
+        private static String digest(byte[] content) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
     }
 }
@@ -117,11 +117,14 @@ function renderRoutes(routes) {
     const rateLabel = route.rateLimitQps ? `${route.rateLimitQps}/s` : "不限流";
     const createdAt = route.createdAt ? route.createdAt.replace("T", " ").replace("Z", "") : "-";
     const updatedAt = route.updatedAt ? route.updatedAt.replace("T", " ").replace("Z", "") : "-";
+    const targetLabel = route.targets && route.targets.length
+      ? route.targets.map((t) => `${t.url}×${t.weight || 1}`).join("<br />") + `<br /><small>${route.loadBalancer || "round-robin"}</small>`
+      : route.target;
     row.innerHTML = `
       <span>${route.path}</span>
       <span>${route.group || "-"}</span>
       <span>${(route.methods || ["ALL"]).join(", ")}</span>
-      <span>${route.target}</span>
+      <span>${targetLabel}</span>
       <span>${authLabel} · ${rateLabel}</span>
       <span>${route.enabled === false ? "禁用" : "启用"} · ${route.timeoutMs || 3000}ms<br /><small>${createdAt} / ${updatedAt}</small></span>
       <span class="actions"></span>
@@ -202,9 +205,13 @@ function renderMetrics(metrics) {
   metrics.forEach((metric) => {
     const item = document.createElement("div");
     item.className = "metric-item";
+    const minute = (metric.windows || []).find((window) => window.window === "60s") || {};
+    const latency = metric.latency || {};
     item.innerHTML = `
-      <span class="metric-id">${metric.routeId}</span>
+      <span class="metric-id">${metric.routeId}${metric.variant ? ` · ${metric.variant}` : ""}</span>
       <span>命中：${metric.hits}</span>
+      <span>QPS(1m)：${minute.requestsPerSec ?? 0} · 错误率：${minute.errorRate ?? 0}</span>
+      <span>P50/P99：${latency.p50Ms ?? 0}/${latency.p99Ms ?? 0}ms</span>
       <span>最近：${metric.lastHit || "-"}</span>
     `;
     metricsEl.appendChild(item);